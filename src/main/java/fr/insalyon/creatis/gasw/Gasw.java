@@ -32,11 +32,30 @@
  */
 package fr.insalyon.creatis.gasw;
 
+import fr.insalyon.creatis.gasw.dao.DAOException;
+import fr.insalyon.creatis.gasw.dao.DAOFactory;
 import fr.insalyon.creatis.gasw.execution.ExecutorFactory;
 import fr.insalyon.creatis.gasw.execution.FailOver;
+import fr.insalyon.creatis.gasw.execution.GaswMonitor;
+import fr.insalyon.creatis.gasw.execution.GaswRuntime;
+import fr.insalyon.creatis.gasw.execution.GaswSubmit;
+import fr.insalyon.creatis.gasw.execution.InvocationIDAllocator;
+import fr.insalyon.creatis.gasw.execution.ListenerDispatcher;
+import fr.insalyon.creatis.gasw.execution.OutputParsingPipeline;
+import fr.insalyon.creatis.gasw.execution.SignalDispatcher;
+import fr.insalyon.creatis.gasw.execution.SubmissionPool;
 import fr.insalyon.creatis.gasw.plugin.ExecutorPlugin;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,6 +83,7 @@ public class Gasw {
             GaswConfiguration.getInstance().loadHibernate();
 
             notification = GaswNotification.getInstance();
+            InvocationIDAllocator.getInstance();
 
         } catch (IllegalArgumentException ex) {
             throw new GaswException(ex);
@@ -74,23 +94,144 @@ public class Gasw {
         notification.setClient(client);
     }
 
-    public synchronized String submit(GaswInput gaswInput) throws GaswException {
+    /**
+     * Submits a job. Only the executor handling the job is locked, so
+     * concurrent submissions do not block the retrieval of finished jobs.
+     *
+     * @param gaswInput Job inputs
+     * @return Job identification
+     */
+    public String submit(GaswInput gaswInput) throws GaswException {
 
         ExecutorPlugin executor = ExecutorFactory.getExecutor(gaswInput);
-        executor.load(gaswInput);
-        return executor.submit();
+        synchronized (executor) {
+            executor.load(gaswInput);
+            return executor.submit();
+        }
     }
 
-    public synchronized List<GaswOutput> getFinishedJobs() {
+    /**
+     * Submits several jobs. Scripts, configurations and invocations are
+     * generated in parallel, then each executor receives its jobs as a
+     * single batch.
+     *
+     * @param gaswInputs Jobs inputs
+     * @return Jobs identifications, in the iteration order of the inputs
+     */
+    public List<String> submitAll(Collection<GaswInput> gaswInputs) throws GaswException {
+
+        List<GaswInput> inputs = new ArrayList<>(gaswInputs);
+        SubmissionPool.getInstance().prepare(inputs);
+
+        String[] jobIDs = new String[inputs.size()];
+        try {
+            Map<ExecutorPlugin, List<Integer>> batches = new LinkedHashMap<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                ExecutorPlugin executor = ExecutorFactory.getExecutor(inputs.get(i));
+                batches.computeIfAbsent(executor, k -> new ArrayList<>()).add(i);
+            }
+
+            for (Map.Entry<ExecutorPlugin, List<Integer>> batch : batches.entrySet()) {
+                List<GaswInput> batchInputs = new ArrayList<>(batch.getValue().size());
+                for (int index : batch.getValue()) {
+                    batchInputs.add(inputs.get(index));
+                }
+                List<String> batchIDs = batch.getKey().submit(batchInputs);
+                for (int i = 0; i < batchIDs.size(); i++) {
+                    jobIDs[batch.getValue().get(i)] = batchIDs.get(i);
+                }
+            }
+        } catch (GaswException | RuntimeException ex) {
+            // artifacts prepared for jobs that were not submitted would
+            // otherwise be kept until the end of the process
+            for (int i = 0; i < inputs.size(); i++) {
+                if (jobIDs[i] == null) {
+                    GaswSubmit.discard(inputs.get(i));
+                }
+            }
+            throw ex;
+        }
+        return Arrays.asList(jobIDs);
+    }
+
+    /**
+     * Submits a job without waiting for the executor. Unless the executor
+     * overrides ExecutorPlugin.submitAsync(), its submissions still run one
+     * at a time.
+     *
+     * @param gaswInput Job inputs
+     * @return Future completed with the job identification
+     */
+    public CompletableFuture<String> submitAsync(GaswInput gaswInput) throws GaswException {
+
+        // starts the pool running the default asynchronous submissions
+        SubmissionPool.getInstance();
+        return ExecutorFactory.getExecutor(gaswInput).submitAsync(gaswInput);
+    }
+
+    public List<GaswOutput> getFinishedJobs() {
         return notification.getFinishedJobs();
     }
 
-    public synchronized void waitForNotification() {
+    /**
+     * Moves all finished jobs into the given collection.
+     *
+     * @param outputs Collection receiving the finished jobs
+     * @return Number of jobs moved
+     */
+    public int drainFinishedJobs(Collection<? super GaswOutput> outputs) {
+        return notification.drainTo(outputs);
+    }
+
+    public void waitForNotification() {
         notification.waitForNotification();
     }
 
+    /**
+     * Blocks until at least one job has finished or the timeout expires.
+     *
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return Finished jobs, possibly empty
+     */
+    public List<GaswOutput> waitForFinishedJobs(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return notification.waitForFinishedJobs(timeout, unit);
+    }
+
+    /**
+     * Gets a publisher emitting each job as soon as it finishes.
+     *
+     * @return Publisher of finished jobs
+     */
+    public Flow.Publisher<GaswOutput> getFinishedJobsPublisher() {
+        return notification.getFinishedJobsPublisher();
+    }
+
+    /**
+     * Gets the current value of the metrics published by GASW components.
+     *
+     * @return Metric values by name
+     */
+    public Map<String, Number> getMetrics() {
+        return GaswMetrics.snapshot();
+    }
+
     public synchronized void terminate(boolean force) throws GaswException {
+        // parsers still running notify the client and listeners and signal
+        // replicas: drain them before stopping these services
+        OutputParsingPipeline.terminate(force);
+        GaswRuntime.terminate(force);
         notification.terminate();
+        SubmissionPool.terminate();
+        SignalDispatcher.terminate();
+        ListenerDispatcher.terminate(force);
+        GaswMonitor.unregisterAllMetrics();
+        try {
+            DAOFactory.getDAOFactory().flush();
+        } catch (DAOException ex) {
+            logger.error("Error writing pending updates", ex);
+        }
 
         if (GaswConfiguration.getInstance().isFailOverEnabled()) {
             FailOver.getInstance().terminate();
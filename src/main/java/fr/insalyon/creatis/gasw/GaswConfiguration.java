@@ -51,6 +51,8 @@ import org.hibernate.service.ServiceRegistry;
 
 import fr.insalyon.creatis.gasw.bean.Data;
 import fr.insalyon.creatis.gasw.bean.DataToReplicate;
+import fr.insalyon.creatis.gasw.bean.FailedJobOutput;
+import fr.insalyon.creatis.gasw.bean.InvocationSequence;
 import fr.insalyon.creatis.gasw.bean.Job;
 import fr.insalyon.creatis.gasw.bean.JobMinorStatus;
 import fr.insalyon.creatis.gasw.bean.Node;
@@ -114,6 +116,50 @@ public class GaswConfiguration {
     private boolean minorStatusEnabled;
     // Others
     private String sourceScript;
+    // Submission
+    private int submitPoolSize;
+    private boolean submitPrepareVirtualThreads;
+    private boolean submitAtomicWrites;
+    private int submitManifestThreshold;
+    private boolean submitManifestCompress;
+    // Files layout
+    private boolean layoutSharded;
+    // Invocations
+    private int invocationIDBlockSize;
+    private int invocationIDCacheSize;
+    // Signaled actions
+    private int signalPoolSize;
+    private int signalActionConcurrency;
+    private int signalBatchSize;
+    // Monitoring
+    private int statusCoalescingWindow;
+    private boolean activeJobRegistryEnabled;
+    private boolean pollingAdaptive;
+    private int pollingMin;
+    private int pollingMax;
+    private int pollingFewJobs;
+    private boolean replicaImmediateKill;
+    // Runtime
+    private boolean runtimeEnabled;
+    private int runtimeSchedulerSize;
+    private int runtimeDrainTimeout;
+    // Output parsing
+    private boolean parserPipelineEnabled;
+    private int parserPipelineConcurrency;
+    private int parserPipelineQueueSize;
+    private boolean parserPipelineVirtualThreads;
+    private int parserAppTailSize;
+    // Listeners
+    private boolean listenerAsync;
+    private int listenerQueueSize;
+    private String listenerBackpressure;
+    private boolean listenerVirtualThreads;
+    // Notification
+    private boolean notificationPushEnabled;
+    private int notificationCoalescingWindow;
+    private int errorJobsCacheSize;
+    private int errorJobsCacheTTL;
+    private boolean errorJobsSpillEnabled;
     // Plugins
     private List<Object> executorPluginsURI;
     private List<ExecutorPlugin> executorPlugins;
@@ -185,6 +231,44 @@ public class GaswConfiguration {
 
             sourceScript = config.getString(GaswConstants.LAB_SOURCE_SCRIPT, "");
 
+            submitPoolSize = config.getInt(GaswConstants.LAB_SUBMIT_POOL_SIZE, Runtime.getRuntime().availableProcessors());
+            submitPrepareVirtualThreads = config.getBoolean(GaswConstants.LAB_SUBMIT_PREPARE_VIRTUAL_THREADS, false);
+            submitAtomicWrites = config.getBoolean(GaswConstants.LAB_SUBMIT_ATOMIC_WRITES, false);
+            submitManifestThreshold = config.getInt(GaswConstants.LAB_SUBMIT_MANIFEST_THRESHOLD, 0);
+            submitManifestCompress = config.getBoolean(GaswConstants.LAB_SUBMIT_MANIFEST_COMPRESS, false);
+
+            layoutSharded = config.getBoolean(GaswConstants.LAB_LAYOUT_SHARDED, false);
+            invocationIDBlockSize = config.getInt(GaswConstants.LAB_INVOCATION_ID_BLOCK_SIZE, 100);
+            invocationIDCacheSize = config.getInt(GaswConstants.LAB_INVOCATION_ID_CACHE_SIZE, 100000);
+            signalPoolSize = config.getInt(GaswConstants.LAB_SIGNAL_POOL_SIZE, 8);
+            signalActionConcurrency = config.getInt(GaswConstants.LAB_SIGNAL_ACTION_CONCURRENCY, 1);
+            signalBatchSize = config.getInt(GaswConstants.LAB_SIGNAL_BATCH_SIZE, 50);
+            statusCoalescingWindow = config.getInt(GaswConstants.LAB_STATUS_COALESCING_WINDOW, 0);
+            activeJobRegistryEnabled = config.getBoolean(GaswConstants.LAB_ACTIVE_JOB_REGISTRY, false);
+            pollingAdaptive = config.getBoolean(GaswConstants.LAB_POLLING_ADAPTIVE, false);
+            pollingMin = config.getInt(GaswConstants.LAB_POLLING_MIN, 5) * 1000;
+            pollingMax = config.getInt(GaswConstants.LAB_POLLING_MAX, 120) * 1000;
+            pollingFewJobs = config.getInt(GaswConstants.LAB_POLLING_FEW_JOBS, 10);
+            replicaImmediateKill = config.getBoolean(GaswConstants.LAB_REPLICA_IMMEDIATE_KILL, false);
+            runtimeEnabled = config.getBoolean(GaswConstants.LAB_RUNTIME_ENABLED, false);
+            runtimeSchedulerSize = config.getInt(GaswConstants.LAB_RUNTIME_SCHEDULER_SIZE, 2);
+            runtimeDrainTimeout = config.getInt(GaswConstants.LAB_RUNTIME_DRAIN_TIMEOUT, 60);
+            parserPipelineEnabled = config.getBoolean(GaswConstants.LAB_PARSER_PIPELINE_ENABLED, false);
+            parserPipelineConcurrency = config.getInt(GaswConstants.LAB_PARSER_PIPELINE_CONCURRENCY, Runtime.getRuntime().availableProcessors());
+            parserPipelineQueueSize = config.getInt(GaswConstants.LAB_PARSER_PIPELINE_QUEUE_SIZE, 1000);
+            parserPipelineVirtualThreads = config.getBoolean(GaswConstants.LAB_PARSER_PIPELINE_VIRTUAL_THREADS, false);
+            parserAppTailSize = config.getInt(GaswConstants.LAB_PARSER_APP_TAIL_SIZE, 65536);
+            listenerAsync = config.getBoolean(GaswConstants.LAB_LISTENER_ASYNC, false);
+            listenerQueueSize = config.getInt(GaswConstants.LAB_LISTENER_QUEUE_SIZE, 10000);
+            listenerBackpressure = config.getString(GaswConstants.LAB_LISTENER_BACKPRESSURE, "BLOCK");
+            listenerVirtualThreads = config.getBoolean(GaswConstants.LAB_LISTENER_VIRTUAL_THREADS, false);
+
+            notificationPushEnabled = config.getBoolean(GaswConstants.LAB_NOTIFICATION_PUSH_ENABLED, false);
+            notificationCoalescingWindow = config.getInt(GaswConstants.LAB_NOTIFICATION_COALESCING_WINDOW, 0);
+            errorJobsCacheSize = config.getInt(GaswConstants.LAB_ERROR_JOBS_CACHE_SIZE, 10000);
+            errorJobsCacheTTL = config.getInt(GaswConstants.LAB_ERROR_JOBS_CACHE_TTL, 0);
+            errorJobsSpillEnabled = config.getBoolean(GaswConstants.LAB_ERROR_JOBS_SPILL_ENABLED, false);
+
             dbPluginURI = config.getString(GaswConstants.LAB_PLUGIN_DB, "");
             executorPluginsURI = config.getList(GaswConstants.LAB_PLUGIN_EXECUTOR);
             listenerPluginsURI = config.getList(GaswConstants.LAB_PLUGIN_LISTENER);
@@ -286,6 +370,8 @@ public class GaswConfiguration {
         cfg.setProperty("hibernate.format_sql", false);
         cfg.addAnnotatedClass(Data.class);
         cfg.addAnnotatedClass(DataToReplicate.class);
+        cfg.addAnnotatedClass(FailedJobOutput.class);
+        cfg.addAnnotatedClass(InvocationSequence.class);
         cfg.addAnnotatedClass(Job.class);
         cfg.addAnnotatedClass(JobMinorStatus.class);
         cfg.addAnnotatedClass(Node.class);
@@ -482,6 +568,185 @@ public class GaswConfiguration {
         return sourceScript;
     }
 
+    public int getSubmitPoolSize() {
+        return submitPoolSize;
+    }
+
+    /**
+     * @return Whether job artifacts are prepared on virtual threads;
+     * asynchronous submissions always run on platform threads
+     */
+    public boolean isSubmitPrepareVirtualThreads() {
+        return submitPrepareVirtualThreads;
+    }
+
+    public boolean isSubmitAtomicWrites() {
+        return submitAtomicWrites;
+    }
+
+    /**
+     * @return Number of inputs from which they are listed in a manifest file
+     * instead of the job configuration, 0 if manifests are disabled
+     */
+    public int getSubmitManifestThreshold() {
+        return submitManifestThreshold;
+    }
+
+    public boolean isSubmitManifestCompress() {
+        return submitManifestCompress;
+    }
+
+    public boolean isLayoutSharded() {
+        return layoutSharded;
+    }
+
+    public int getInvocationIDBlockSize() {
+        return invocationIDBlockSize;
+    }
+
+    public int getInvocationIDCacheSize() {
+        return invocationIDCacheSize;
+    }
+
+    public int getSignalPoolSize() {
+        return signalPoolSize;
+    }
+
+    /**
+     * @return Maximum number of batches of the same signaled action running
+     * at a time
+     */
+    public int getSignalActionConcurrency() {
+        return signalActionConcurrency;
+    }
+
+    public int getSignalBatchSize() {
+        return signalBatchSize;
+    }
+
+    /**
+     * @return Window in milliseconds within which status updates of a job
+     * are coalesced, 0 to write each of them
+     */
+    public int getStatusCoalescingWindow() {
+        return statusCoalescingWindow;
+    }
+
+    public boolean isActiveJobRegistryEnabled() {
+        return activeJobRegistryEnabled;
+    }
+
+    public boolean isPollingAdaptive() {
+        return pollingAdaptive;
+    }
+
+    public int getPollingMin() {
+        return pollingMin;
+    }
+
+    public int getPollingMax() {
+        return pollingMax;
+    }
+
+    public int getPollingFewJobs() {
+        return pollingFewJobs;
+    }
+
+    public boolean isReplicaImmediateKill() {
+        return replicaImmediateKill;
+    }
+
+    public boolean isRuntimeEnabled() {
+        return runtimeEnabled;
+    }
+
+    public int getRuntimeSchedulerSize() {
+        return runtimeSchedulerSize;
+    }
+
+    /**
+     * @return Time in seconds given to running tasks to complete on
+     * termination
+     */
+    public int getRuntimeDrainTimeout() {
+        return runtimeDrainTimeout;
+    }
+
+    public boolean isParserPipelineEnabled() {
+        return parserPipelineEnabled;
+    }
+
+    /**
+     * @return Maximum number of outputs parsed at the same time
+     */
+    public int getParserPipelineConcurrency() {
+        return parserPipelineConcurrency;
+    }
+
+    /**
+     * @return Maximum number of parsers waiting for a slot before
+     * submitters are blocked
+     */
+    public int getParserPipelineQueueSize() {
+        return parserPipelineQueueSize;
+    }
+
+    public boolean isParserPipelineVirtualThreads() {
+        return parserPipelineVirtualThreads;
+    }
+
+    /**
+     * @return Number of characters of the application output and error
+     * kept in memory by output parsers
+     */
+    public int getParserAppTailSize() {
+        return parserAppTailSize;
+    }
+
+    public boolean isListenerAsync() {
+        return listenerAsync;
+    }
+
+    public int getListenerQueueSize() {
+        return listenerQueueSize;
+    }
+
+    /**
+     * @return Behaviour when a listener queue is full: BLOCK, DROP or
+     * COALESCE
+     */
+    public String getListenerBackpressure() {
+        return listenerBackpressure;
+    }
+
+    public boolean isListenerVirtualThreads() {
+        return listenerVirtualThreads;
+    }
+
+    public boolean isNotificationPushEnabled() {
+        return notificationPushEnabled;
+    }
+
+    public int getNotificationCoalescingWindow() {
+        return notificationCoalescingWindow;
+    }
+
+    public int getErrorJobsCacheSize() {
+        return errorJobsCacheSize;
+    }
+
+    /**
+     * @return Time to live of the cached error jobs in seconds, 0 if they
+     * never expire
+     */
+    public int getErrorJobsCacheTTL() {
+        return errorJobsCacheTTL;
+    }
+
+    public boolean isErrorJobsSpillEnabled() {
+        return errorJobsSpillEnabled;
+    }
+
     public int getMinAvgDownloadThroughput() {
         return minAvgDownloadThroughput;
     }
@@ -54,6 +54,41 @@ public class GaswConstants {
     public static final String LAB_FAILOVER_RETRY = "failover.max.retry";
     public static final String LAB_MINORSTATUS_ENABLED = "minorstatus.service.enabled";
     public static final String LAB_SOURCE_SCRIPT = "source.script";
+    public static final String LAB_SUBMIT_POOL_SIZE = "submit.pool.size";
+    public static final String LAB_SUBMIT_PREPARE_VIRTUAL_THREADS = "submit.prepare.virtual.threads";
+    public static final String LAB_SUBMIT_ATOMIC_WRITES = "submit.atomic.writes";
+    public static final String LAB_SUBMIT_MANIFEST_THRESHOLD = "submit.manifest.threshold";
+    public static final String LAB_SUBMIT_MANIFEST_COMPRESS = "submit.manifest.compress";
+    public static final String LAB_LAYOUT_SHARDED = "layout.sharded";
+    public static final String LAB_INVOCATION_ID_BLOCK_SIZE = "invocation.id.block.size";
+    public static final String LAB_INVOCATION_ID_CACHE_SIZE = "invocation.id.cache.size";
+    public static final String LAB_SIGNAL_POOL_SIZE = "signal.pool.size";
+    public static final String LAB_SIGNAL_ACTION_CONCURRENCY = "signal.action.concurrency";
+    public static final String LAB_SIGNAL_BATCH_SIZE = "signal.batch.size";
+    public static final String LAB_STATUS_COALESCING_WINDOW = "monitor.status.coalescing.window";
+    public static final String LAB_ACTIVE_JOB_REGISTRY = "monitor.active.registry";
+    public static final String LAB_POLLING_ADAPTIVE = "monitor.polling.adaptive";
+    public static final String LAB_POLLING_MIN = "monitor.polling.min";
+    public static final String LAB_POLLING_MAX = "monitor.polling.max";
+    public static final String LAB_POLLING_FEW_JOBS = "monitor.polling.few.jobs";
+    public static final String LAB_REPLICA_IMMEDIATE_KILL = "replica.immediate.kill";
+    public static final String LAB_RUNTIME_ENABLED = "runtime.enabled";
+    public static final String LAB_RUNTIME_SCHEDULER_SIZE = "runtime.scheduler.size";
+    public static final String LAB_RUNTIME_DRAIN_TIMEOUT = "runtime.drain.timeout";
+    public static final String LAB_PARSER_PIPELINE_ENABLED = "parser.pipeline.enabled";
+    public static final String LAB_PARSER_PIPELINE_CONCURRENCY = "parser.pipeline.concurrency";
+    public static final String LAB_PARSER_PIPELINE_QUEUE_SIZE = "parser.pipeline.queue.size";
+    public static final String LAB_PARSER_PIPELINE_VIRTUAL_THREADS = "parser.pipeline.virtual.threads";
+    public static final String LAB_PARSER_APP_TAIL_SIZE = "parser.app.tail.size";
+    public static final String LAB_LISTENER_ASYNC = "listener.async";
+    public static final String LAB_LISTENER_QUEUE_SIZE = "listener.queue.size";
+    public static final String LAB_LISTENER_BACKPRESSURE = "listener.backpressure";
+    public static final String LAB_LISTENER_VIRTUAL_THREADS = "listener.virtual.threads";
+    public static final String LAB_NOTIFICATION_PUSH_ENABLED = "notification.push.enabled";
+    public static final String LAB_NOTIFICATION_COALESCING_WINDOW = "notification.coalescing.window";
+    public static final String LAB_ERROR_JOBS_CACHE_SIZE = "notification.errorjobs.cache.size";
+    public static final String LAB_ERROR_JOBS_CACHE_TTL = "notification.errorjobs.cache.ttl";
+    public static final String LAB_ERROR_JOBS_SPILL_ENABLED = "notification.errorjobs.spill.enabled";
     public static final String LAB_PLUGIN_DB = "plugin.db";
     public static final String LAB_PLUGIN_EXECUTOR = "plugin.executor";
     public static final String LAB_PLUGIN_LISTENER = "plugin.listener";
@@ -76,6 +111,7 @@ public class GaswConstants {
     public static final int SRM_TIMEOUT = 30;
     // Directories
     public static final String SCRIPT_ROOT = "./sh";
+    public static final String SHARED_SCRIPT_DIR = SCRIPT_ROOT + "/shared";
     public static final String JDL_ROOT = "./jdl";
     public static final String OUT_ROOT = "./out";
     public static final String ERR_ROOT = "./err";
@@ -35,22 +35,45 @@
 package fr.insalyon.creatis.gasw;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import fr.insalyon.creatis.gasw.bean.FailedJobOutput;
+import fr.insalyon.creatis.gasw.dao.DAOException;
+import fr.insalyon.creatis.gasw.dao.DAOFactory;
+import fr.insalyon.creatis.gasw.execution.GaswRuntime;
+import fr.insalyon.creatis.gasw.util.BoundedCache;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Hands finished jobs over to the client. Output parsers publish to a
+ * lock-free queue, and the client drains it in batches.
+ */
 public class GaswNotification extends Thread {
 
     private static final Logger logger = LoggerFactory.getLogger(GaswNotification.class);
     private static GaswNotification instance;
-    private Notification notification;
+    private volatile Notification notification;
+    private volatile GaswRuntime.PeriodicTask notificationTask;
+    private GaswRuntime runtime;
+    private boolean pushEnabled;
+    private int coalescingWindow;
     private Object client;
-    private volatile List<GaswOutput> finishedJobs;
-    private volatile Map<String, GaswOutput> instanceErrorJobs;
+    private final LinkedTransferQueue<GaswOutput> finishedJobs;
+    private final BoundedCache<String, GaswOutput> instanceErrorJobs;
+    private final boolean spillErrorJobs;
     private volatile boolean gettingOutputs;
+    private final AtomicBoolean pendingSignal;
+    private final SubmissionPublisher<GaswOutput> publisher;
 
     public synchronized static GaswNotification getInstance() {
 
@@ -62,83 +85,269 @@ public class GaswNotification extends Thread {
 
     private GaswNotification() {
 
-        this.finishedJobs = new ArrayList<GaswOutput>();
+        this.finishedJobs = new LinkedTransferQueue<GaswOutput>();
         this.gettingOutputs = false;
-        this.instanceErrorJobs =  new HashMap<>();
+        this.pendingSignal = new AtomicBoolean();
+        this.publisher = new SubmissionPublisher<>();
+
+        int cacheSize = 10000;
+        int cacheTTL = 0;
+        boolean spill = false;
+        try {
+            GaswConfiguration conf = GaswConfiguration.getInstance();
+            cacheSize = conf.getErrorJobsCacheSize();
+            cacheTTL = conf.getErrorJobsCacheTTL();
+            spill = conf.isErrorJobsSpillEnabled();
+        } catch (GaswException ex) {
+            logger.error("Unable to read error jobs cache settings, using defaults", ex);
+        }
+        this.instanceErrorJobs = new BoundedCache<>(cacheSize, cacheTTL * 1000L);
+        this.spillErrorJobs = spill;
+        if (spillErrorJobs) {
+            instanceErrorJobs.setEvictionListener((jobID, output) -> spill(output));
+        }
+        GaswMetrics.register("notification.errorjobs.size", instanceErrorJobs::size);
+        GaswMetrics.register("notification.errorjobs.hits", instanceErrorJobs::getHits);
+        GaswMetrics.register("notification.errorjobs.misses", instanceErrorJobs::getMisses);
+        GaswMetrics.register("notification.errorjobs.evictions", instanceErrorJobs::getEvictions);
     }
 
     /**
-     * Sets the client to be notified when jobs are completed.
+     * Sets the client to be notified when jobs are completed. When the GASW
+     * runtime is enabled, the client is notified by a task scheduled on it;
+     * otherwise by a notification thread.
      *
      * @param client
      */
     public void setClient(Object client) {
         this.client = client;
+        try {
+            if (GaswRuntime.isEnabled()) {
+                GaswConfiguration conf = GaswConfiguration.getInstance();
+                pushEnabled = conf.isNotificationPushEnabled();
+                coalescingWindow = conf.getNotificationCoalescingWindow();
+                runtime = GaswRuntime.getInstance();
+                long period = conf.getDefaultSleeptime() / 2;
+                notificationTask = runtime.schedule("notification", () -> {
+                    notifyClient();
+                    return period;
+                }, period);
+                return;
+            }
+        } catch (GaswException ex) {
+            logger.warn("Unable to use the GASW runtime, starting a notification thread", ex);
+        }
         notification = new Notification();
         notification.start();
     }
 
-    public synchronized void addFinishedJob(GaswOutput finishedJob) {
-        this.finishedJobs.add(finishedJob);
+    public void addFinishedJob(GaswOutput finishedJob) {
+        int subscribers = publisher.getNumberOfSubscribers();
+        if (subscribers > 0) {
+            // never block the output parser on a slow subscriber: a job
+            // that no subscriber buffer can take is queued for polling
+            // instead, and one that some subscriber took is not, so that
+            // it is never delivered twice
+            int[] drops = new int[1];
+            publisher.offer(finishedJob, (subscriber, output) -> {
+                drops[0]++;
+                return false;
+            });
+            if (drops[0] < subscribers) {
+                if (drops[0] > 0) {
+                    logger.warn("Subscriber buffer full, {} subscribers missed job {}.",
+                            drops[0], finishedJob.getJobID());
+                }
+                return;
+            }
+            logger.warn("Subscriber buffers full, queueing job {} for polling.",
+                    finishedJob.getJobID());
+        }
+        finishedJobs.offer(finishedJob);
+        signal();
     }
 
     public List<GaswOutput> getFinishedJobs() {
         gettingOutputs = true;
         List<GaswOutput> outputsList = new ArrayList<GaswOutput>();
+        finishedJobs.drainTo(outputsList);
+        return outputsList;
+    }
 
-        synchronized (finishedJobs) {
-            for (GaswOutput output : finishedJobs) {
-                outputsList.add(output);
+    /**
+     * Moves all finished jobs into the given collection.
+     *
+     * @param outputs Collection receiving the finished jobs
+     * @return Number of jobs moved
+     */
+    public int drainTo(Collection<? super GaswOutput> outputs) {
+        gettingOutputs = true;
+        return finishedJobs.drainTo(outputs);
+    }
+
+    /**
+     * Waits until at least one job has finished, then returns all finished
+     * jobs. If a coalescing window is configured, jobs finishing within
+     * that window after the first one are returned together.
+     *
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return Finished jobs, or an empty list if none finished in time
+     * @throws InterruptedException
+     */
+    public List<GaswOutput> waitForFinishedJobs(long timeout, TimeUnit unit)
+            throws InterruptedException {
+
+        List<GaswOutput> outputsList = new ArrayList<GaswOutput>();
+        GaswOutput first = finishedJobs.poll(timeout, unit);
+
+        if (first != null) {
+            outputsList.add(first);
+            finishedJobs.drainTo(outputsList);
+            long deadline = System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(getCoalescingWindow());
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                GaswOutput next = finishedJobs.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                outputsList.add(next);
+                finishedJobs.drainTo(outputsList);
             }
-            finishedJobs = new ArrayList<GaswOutput>();
         }
-
         return outputsList;
     }
 
-    public synchronized void addErrorJob(GaswOutput errorJob) {
+    /**
+     * Gets a publisher emitting each job as soon as it finishes. While
+     * there are subscribers, a job received by at least one of them is not
+     * queued for getFinishedJobs(); only a job that no subscriber buffer
+     * can take is queued instead. A subscriber whose buffer is full misses
+     * the jobs other subscribers receive.
+     *
+     * @return Publisher of finished jobs
+     */
+    public Flow.Publisher<GaswOutput> getFinishedJobsPublisher() {
+        return publisher;
+    }
+
+    public void addErrorJob(GaswOutput errorJob) {
         if (errorJob.getStdErr() != null) {
-            String instanceId = errorJob.getJobID();
-            if (this.instanceErrorJobs.containsKey(instanceId)) {
-                this.instanceErrorJobs.replace(instanceId,errorJob);
-            } else {
-                this.instanceErrorJobs.put(instanceId,errorJob);
-            }
+            this.instanceErrorJobs.put(errorJob.getJobID(), errorJob);
         }
     }
 
     public GaswOutput getGaswOutputFromLastFailedJob(String instanceId) {
-        if (this.instanceErrorJobs.containsKey(instanceId)) {
-            return this.instanceErrorJobs.get(instanceId);
+        GaswOutput output = this.instanceErrorJobs.get(instanceId);
+
+        if (output == null && spillErrorJobs) {
+            try {
+                FailedJobOutput failedJobOutput = DAOFactory.getDAOFactory()
+                        .getFailedJobOutputDAO().getByJobID(instanceId);
+                if (failedJobOutput != null) {
+                    output = failedJobOutput.toGaswOutput();
+                }
+            } catch (DAOException ex) {
+                logger.error("Unable to load failed job output {}", instanceId, ex);
+            }
+        }
+        return output;
+    }
+
+    private void spill(GaswOutput output) {
+        try {
+            DAOFactory.getDAOFactory().getFailedJobOutputDAO().add(new FailedJobOutput(output));
+        } catch (DAOException ex) {
+            logger.error("Unable to save failed job output {}", output.getJobID(), ex);
         }
-        return null;
     }
 
     public void waitForNotification() {
         gettingOutputs = false;
+        signal();
     }
 
 
     public void terminate() {
-        notification.terminate();
+        if (notification != null) {
+            notification.terminate();
+        }
+        if (notificationTask != null) {
+            notificationTask.cancel();
+        }
+        publisher.close();
+    }
+
+    private void signal() {
+        if (!pendingSignal.getAndSet(true)) {
+            Thread thread = notification;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            } else if (notificationTask != null && pushEnabled) {
+                // one-off notification once the coalescing window is over
+                runtime.schedule("notification", () -> {
+                    pendingSignal.set(false);
+                    notifyClient();
+                    return -1;
+                }, coalescingWindow);
+            }
+        }
+    }
+
+    private void notifyClient() {
+        if (!gettingOutputs && !finishedJobs.isEmpty()) {
+            logger.debug("New tasks have finished execution. Notifying client...");
+            synchronized (client) {
+                client.notify();
+            }
+        }
+    }
+
+    /**
+     * Waits for a finished job or a client request, at most the given time.
+     * Only called from the notification thread.
+     */
+    private void awaitSignal(long timeout) {
+        if (!pendingSignal.get()) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(timeout));
+        }
+        pendingSignal.set(false);
+    }
+
+    private void coalesce() throws InterruptedException {
+        int window = getCoalescingWindow();
+        if (window > 0) {
+            sleep(window);
+        }
+    }
+
+    private int getCoalescingWindow() {
+        try {
+            return GaswConfiguration.getInstance().getNotificationCoalescingWindow();
+        } catch (GaswException ex) {
+            logger.error("Error:", ex);
+            return 0;
+        }
     }
 
     private class Notification extends Thread {
-        private boolean stop = false;
+        private volatile boolean stop = false;
 
         @Override
         public void run() {
 
             while (!stop) {
 
-                if (!gettingOutputs && finishedJobs != null && !finishedJobs.isEmpty()) {
-                    logger.debug("New tasks have finished execution. Notifying client...");
-                    synchronized (client) {
-                        client.notify();
-                    }
-                }
+                notifyClient();
                 try {
-                    sleep(GaswConfiguration.getInstance().getDefaultSleeptime() / 2);
+                    GaswConfiguration conf = GaswConfiguration.getInstance();
+                    if (conf.isNotificationPushEnabled()) {
+                        awaitSignal(conf.getDefaultSleeptime() / 2);
+                        coalesce();
+                    } else {
+                        sleep(conf.getDefaultSleeptime() / 2);
+                    }
                 } catch (GaswException ex) {
                     logger.error("Error:", ex);
                 } catch (InterruptedException ex) {
@@ -149,6 +358,7 @@ public class GaswNotification extends Thread {
 
         public void terminate() {
             stop = true;
+            LockSupport.unpark(this);
         }
     }
 }
@@ -0,0 +1,178 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.bean;
+
+import fr.insalyon.creatis.gasw.GaswExitCode;
+import fr.insalyon.creatis.gasw.GaswOutput;
+import java.io.File;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import jakarta.persistence.*;
+
+/**
+ * Output of a failed job, kept in the database once it no longer fits in
+ * the in-memory error job cache.
+ */
+@Entity
+@Table(name = "FailedJobOutputs")
+public class FailedJobOutput {
+
+    private String jobID;
+    private GaswExitCode exitCode;
+    private String exitMessage;
+    private Map<String, String> uploadedResults;
+    private String appStdOut;
+    private String appStdErr;
+    private String stdOut;
+    private String stdErr;
+
+    public FailedJobOutput() {
+    }
+
+    public FailedJobOutput(GaswOutput gaswOutput) {
+        this.jobID = gaswOutput.getJobID();
+        this.exitCode = gaswOutput.getExitCode();
+        this.exitMessage = gaswOutput.getExitMessage();
+        this.uploadedResults = new HashMap<>();
+        if (gaswOutput.getUploadedResultsAsMap() != null) {
+            for (Map.Entry<String, URI> result : gaswOutput.getUploadedResultsAsMap().entrySet()) {
+                uploadedResults.put(result.getKey(), result.getValue().toString());
+            }
+        }
+        this.appStdOut = getPath(gaswOutput.getAppStdOut());
+        this.appStdErr = getPath(gaswOutput.getAppStdErr());
+        this.stdOut = getPath(gaswOutput.getStdOut());
+        this.stdErr = getPath(gaswOutput.getStdErr());
+    }
+
+    /**
+     * Rebuilds the output object.
+     *
+     * @return Gasw output object
+     */
+    public GaswOutput toGaswOutput() {
+        Map<String, URI> results = new HashMap<>();
+        for (Map.Entry<String, String> result : uploadedResults.entrySet()) {
+            results.put(result.getKey(), URI.create(result.getValue()));
+        }
+        return new GaswOutput(jobID, exitCode, exitMessage, results,
+                getFile(appStdOut), getFile(appStdErr), getFile(stdOut), getFile(stdErr));
+    }
+
+    @Id
+    @Column(name = "job_id")
+    public String getJobID() {
+        return jobID;
+    }
+
+    public void setJobID(String jobID) {
+        this.jobID = jobID;
+    }
+
+    @Column(name = "exit_code")
+    @Enumerated(value = EnumType.STRING)
+    public GaswExitCode getExitCode() {
+        return exitCode;
+    }
+
+    public void setExitCode(GaswExitCode exitCode) {
+        this.exitCode = exitCode;
+    }
+
+    @Column(name = "exit_message", length = 10000)
+    public String getExitMessage() {
+        return exitMessage;
+    }
+
+    public void setExitMessage(String exitMessage) {
+        this.exitMessage = exitMessage;
+    }
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "FailedJobOutputResults",
+            joinColumns = @JoinColumn(name = "job_id"))
+    @MapKeyColumn(name = "output_id")
+    @Column(name = "uri", length = 2000)
+    public Map<String, String> getUploadedResults() {
+        return uploadedResults;
+    }
+
+    public void setUploadedResults(Map<String, String> uploadedResults) {
+        this.uploadedResults = uploadedResults;
+    }
+
+    @Column(name = "app_std_out")
+    public String getAppStdOut() {
+        return appStdOut;
+    }
+
+    public void setAppStdOut(String appStdOut) {
+        this.appStdOut = appStdOut;
+    }
+
+    @Column(name = "app_std_err")
+    public String getAppStdErr() {
+        return appStdErr;
+    }
+
+    public void setAppStdErr(String appStdErr) {
+        this.appStdErr = appStdErr;
+    }
+
+    @Column(name = "std_out")
+    public String getStdOut() {
+        return stdOut;
+    }
+
+    public void setStdOut(String stdOut) {
+        this.stdOut = stdOut;
+    }
+
+    @Column(name = "std_err")
+    public String getStdErr() {
+        return stdErr;
+    }
+
+    public void setStdErr(String stdErr) {
+        this.stdErr = stdErr;
+    }
+
+    private static String getPath(File file) {
+        return file == null ? null : file.getPath();
+    }
+
+    private static File getFile(String path) {
+        return path == null ? null : new File(path);
+    }
+}
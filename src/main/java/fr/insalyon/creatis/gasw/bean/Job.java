@@ -47,19 +47,27 @@ import org.hibernate.annotations.Index;
 @NamedQueries({
     @NamedQuery(name = "Job.findById", query = "FROM Job j WHERE j.id = :id"),
     @NamedQuery(name = "Job.findByStatus", query = "FROM Job j WHERE j.status = :status"),
+    @NamedQuery(name = "Job.updateStatus", query = "UPDATE Job j SET j.status = :status, j.queued = COALESCE(:queued, j.queued), j.running = COALESCE(:running, j.running) WHERE j.id = :id"),
+    @NamedQuery(name = "Job.findByStatuses", query = "FROM Job j WHERE j.status IN (:statuses)"),
     @NamedQuery(name = "Job.findByParameters", query = "FROM Job j WHERE j.parameters = :parameters"),
     @NamedQuery(name = "Job.findActiveByInvocationID", query = "FROM Job j WHERE j.invocationID = :invocationID AND (status = :submitted OR status = :queued OR status = :running OR status = :kill OR status = :replicate OR status = :reschedule)"),
     @NamedQuery(name = "Job.findFailedByInvocationID", query = "FROM Job j WHERE j.invocationID = :invocationID AND (status = :error OR status = :stalled OR status = :error_held OR status = :stalled_held)"),
     @NamedQuery(name = "Job.getActive", query = "FROM Job j WHERE status = :submitted OR status = :queued OR status = :running OR status = :kill OR status = :replicate OR status = :reschedule"),
+    @NamedQuery(name = "Job.getCompletedInvocationIDs", query = "SELECT DISTINCT j.invocationID FROM Job j WHERE j.status = :completed"),
     @NamedQuery(name = "Job.getCompletedJobsByInvocationID", query = "SELECT COUNT(j.id) FROM Job j WHERE j.invocationID = :invocationID AND status = :completed"),
     @NamedQuery(name = "Job.getRunningByCommand", query = "FROM Job j WHERE j.command = :command AND (status = :running OR status = :kill OR status = :replicate OR status = :reschedule)"),
     @NamedQuery(name = "Job.getCompletedByCommand", query = "FROM Job j WHERE j.command = :command AND (status = :completed)"),
     @NamedQuery(name = "Job.getFailedByCommand", query = "FROM Job j WHERE j.command = :command AND (status = :error OR status = :stalled OR status = :error_held OR status = :stalled_held)"),
     @NamedQuery(name = "Job.getJobsByCommand", query = "FROM Job j WHERE j.command = :command"),
     @NamedQuery(name = "Job.getJobsByFileName", query = "FROM Job j WHERE j.fileName = :fileName"),
-    @NamedQuery(name = "Job.getInvocationsByCommand", query = "SELECT DISTINCT j.invocationID FROM Job j WHERE j.command = :command")
+    @NamedQuery(name = "Job.getInvocationsByCommand", query = "SELECT DISTINCT j.invocationID FROM Job j WHERE j.command = :command"),
+    @NamedQuery(name = "Job.getMaxInvocationID", query = "SELECT MAX(j.invocationID) FROM Job j"),
+    @NamedQuery(name = "Job.getInvocationIDByFileName", query = "SELECT j.invocationID FROM Job j WHERE j.fileName = :fileName"),
+    @NamedQuery(name = "Job.getRecentInvocationIDs", query = "SELECT DISTINCT j.fileName, j.invocationID FROM Job j ORDER BY j.invocationID DESC")
             })
-@Table(name = "Jobs")
+@Table(name = "Jobs", indexes = {
+    @jakarta.persistence.Index(name = "jobs_status_idx", columnList = "status"),
+    @jakarta.persistence.Index(name = "jobs_filename_idx", columnList = "file_name")})
 public class Job {
 
     private String id;
@@ -158,6 +166,24 @@ public class Job {
         this.diracSite = diracSite;
     }
 
+    /**
+     * Copies a job, e.g. to hand a stable snapshot of it to another thread.
+     * The node and data are shared with the original job.
+     *
+     * @param job Job to copy
+     */
+    public Job(Job job) {
+
+        this(job.id, job.simulationID, job.status, job.exitCode, job.exitMessage,
+                job.creation, job.queued, job.download, job.running, job.upload,
+                job.end, job.node, job.command, job.fileName, job.parameters,
+                job.executor, job.data, job.invocationID, job.diracSite);
+        this.isReplicating = job.isReplicating;
+        this.isBeingKilled = job.isBeingKilled;
+        this.checkpointInit = job.checkpointInit;
+        this.checkpointUpload = job.checkpointUpload;
+    }
+
     @Id
     @Column(name = "id")
     public String getId() {
@@ -52,6 +52,8 @@ import org.hibernate.annotations.GenericGenerator;
     + "JobMinorStatus j WHERE j.job.id = :jobId AND (j.status = :start "
     + "OR j.status = :background OR j.status = :input OR j.status = :application "
     + "OR j.status = :output OR j.status = :finished) ORDER BY j.date"),
+    @NamedQuery(name = "MinorStatus.findById", query = "FROM "
+    + "JobMinorStatus j WHERE j.job.id = :jobId ORDER BY j.date"),
     @NamedQuery(name = "MinorStatus.dateDiff", query = "FROM "
     + "JobMinorStatus j WHERE j.job.id = :jobId AND (j.status = :start "
     + "OR j.status = :end) ORDER BY j.date")
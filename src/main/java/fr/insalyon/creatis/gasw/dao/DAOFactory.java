@@ -47,6 +47,14 @@ public abstract class DAOFactory {
     protected DAOFactory() {}
 
     public abstract void close();
+
+    /**
+     * Writes the changes that DAOs may still keep in memory.
+     *
+     * @throws DAOException
+     */
+    public void flush() throws DAOException {
+    }
     
     public abstract JobDAO getJobDAO();
     
@@ -57,4 +65,17 @@ public abstract class DAOFactory {
     public abstract SEEntryPointsDAO getSEEntryPointDAO();
     
     public abstract DataToReplicateDAO getDataToReplicateDAO();
+
+    public abstract FailedJobOutputDAO getFailedJobOutputDAO();
+
+    public abstract InvocationSequenceDAO getInvocationSequenceDAO();
+
+    /**
+     * Starts a unit of work gathering the changes made while finalizing a
+     * job.
+     *
+     * @param jobID Job ID
+     * @return Unit of work, to be committed
+     */
+    public abstract JobFinalization getJobFinalization(String jobID);
 }
@@ -47,6 +47,10 @@ public class HibernateDAOFactory extends DAOFactory {
 
     private static HibernateDAOFactory instance;
     private SessionFactory sessionFactory;
+    private JobStatusCoalescer statusCoalescer;
+    private CompletedInvocationTracker completedInvocations;
+    private ActiveJobRegistry activeJobs;
+
     public static HibernateDAOFactory getInstance() throws DAOException {
         if (instance == null) {
             instance = new HibernateDAOFactory();
@@ -59,6 +63,18 @@ public class HibernateDAOFactory extends DAOFactory {
 
         try {
             this.sessionFactory = GaswConfiguration.getInstance().getSessionFactory();
+            this.statusCoalescer = new JobStatusCoalescer(sessionFactory,
+                    GaswConfiguration.getInstance().getStatusCoalescingWindow());
+            this.statusCoalescer.start();
+            this.statusCoalescer.registerMetrics();
+            this.completedInvocations = new CompletedInvocationTracker();
+            this.completedInvocations.load(sessionFactory);
+
+            if (GaswConfiguration.getInstance().isActiveJobRegistryEnabled()) {
+                this.activeJobs = new ActiveJobRegistry();
+                this.activeJobs.load(sessionFactory);
+                this.activeJobs.registerMetrics();
+            }
         } catch (GaswException ex) {
             throw new DAOException(ex);
         }
@@ -66,16 +82,22 @@ public class HibernateDAOFactory extends DAOFactory {
 
     @Override
     public void close() {
+        statusCoalescer.close();
         sessionFactory.close();
     }
 
+    @Override
+    public void flush() throws DAOException {
+        statusCoalescer.flush();
+    }
+
     public SessionFactory getSessionFactory() {
         return sessionFactory;
     }
 
     @Override
     public JobDAO getJobDAO() {
-        return new JobData(sessionFactory);
+        return new JobData(sessionFactory, statusCoalescer, completedInvocations, activeJobs);
     }
 
     @Override
@@ -97,4 +119,20 @@ public class HibernateDAOFactory extends DAOFactory {
     public DataToReplicateDAO getDataToReplicateDAO() {
         return new DataToReplicateData(sessionFactory);
     }
+
+    @Override
+    public FailedJobOutputDAO getFailedJobOutputDAO() {
+        return new FailedJobOutputData(sessionFactory);
+    }
+
+    @Override
+    public InvocationSequenceDAO getInvocationSequenceDAO() {
+        return new InvocationSequenceData(sessionFactory);
+    }
+
+    @Override
+    public JobFinalization getJobFinalization(String jobID) {
+        return new JobFinalizationData(sessionFactory,
+                new JobData(sessionFactory, statusCoalescer, completedInvocations, activeJobs), jobID);
+    }
 }
@@ -34,7 +34,10 @@ package fr.insalyon.creatis.gasw.dao;
 
 import fr.insalyon.creatis.gasw.bean.Job;
 import fr.insalyon.creatis.gasw.execution.GaswStatus;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -46,6 +49,20 @@ public interface JobDAO {
 
     public void update(Job job) throws DAOException;
 
+    /**
+     * Updates the status of a job without writing the whole entity. The
+     * update may be delayed and coalesced with later updates of the same
+     * job, according to the configured coalescing window. Only the ID and
+     * the invocation ID are read from the job.
+     *
+     * @param job Job
+     * @param status New status
+     * @param date Date of the transition, recorded as the queued or running
+     * date for these statuses and ignored otherwise
+     * @throws DAOException
+     */
+    public void updateStatus(Job job, GaswStatus status, Date date) throws DAOException;
+
     public void remove(Job job) throws DAOException;
 
     public Job getJobByID(String id) throws DAOException;
@@ -53,8 +70,28 @@ public interface JobDAO {
     public List<Job> getActiveJobs() throws DAOException;
     
     public List<Job> getJobs(GaswStatus status) throws DAOException;
+
+    /**
+     * Gets the jobs in any of the given statuses, with a single query.
+     *
+     * @param statuses Job statuses
+     * @return Jobs grouped by status; statuses without jobs are absent
+     * @throws DAOException
+     */
+    public Map<GaswStatus, List<Job>> getJobsByStatus(Collection<GaswStatus> statuses) throws DAOException;
     
     public long getNumberOfCompletedJobsByInvocationID(int invocationID) throws DAOException;
+
+    /**
+     * Tells whether an invocation has at least one completed job, without
+     * querying the database when completed invocations are tracked in
+     * memory.
+     *
+     * @param invocationID Invocation ID
+     * @return true if a job of the invocation completed
+     * @throws DAOException
+     */
+    public boolean isInvocationCompleted(int invocationID) throws DAOException;
     
     public List<Job> getActiveJobsByInvocationID(int invocationID) throws DAOException;
     
@@ -73,4 +110,16 @@ public interface JobDAO {
     public List<Job> getByFileName(String filename) throws DAOException;
 
     public List<Integer> getInvocationsByCommand(String command) throws DAOException;
+
+    public int getMaxInvocationID() throws DAOException;
+
+    public Integer getInvocationIDByFileName(String fileName) throws DAOException;
+
+    /**
+     * Gets the invocation IDs of the job file names, most recent first.
+     *
+     * @param maxResults Maximum number of file names
+     * @return Invocation IDs by file name, in descending invocation ID order
+     */
+    public Map<String, Integer> getRecentInvocationIDs(int maxResults) throws DAOException;
 }
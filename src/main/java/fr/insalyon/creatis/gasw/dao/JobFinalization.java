@@ -0,0 +1,81 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.dao;
+
+import fr.insalyon.creatis.gasw.bean.Job;
+import fr.insalyon.creatis.gasw.bean.JobMinorStatus;
+import fr.insalyon.creatis.gasw.bean.Node;
+import java.util.List;
+
+/**
+ * Unit of work gathering the changes made to a job while its outputs are
+ * parsed. The minor statuses of the job are read once, and the node and
+ * job are written together in one transaction on commit.
+ */
+public interface JobFinalization {
+
+    /**
+     * @return Checkpoint minor statuses of the job, as
+     * JobMinorStatusDAO.getCheckpoints
+     * @throws DAOException
+     */
+    public List<JobMinorStatus> getCheckpoints() throws DAOException;
+
+    /**
+     * @return Execution minor statuses of the job, as
+     * JobMinorStatusDAO.getExecutionMinorStatus
+     * @throws DAOException
+     */
+    public List<JobMinorStatus> getExecutionMinorStatus() throws DAOException;
+
+    /**
+     * Adds a node on commit.
+     *
+     * @param node Node the job ran on
+     */
+    public void addNode(Node node);
+
+    /**
+     * Updates the job on commit, with its state at that time.
+     *
+     * @param job Job
+     */
+    public void update(Job job);
+
+    /**
+     * Writes the gathered changes in one transaction.
+     *
+     * @throws DAOException
+     */
+    public void commit() throws DAOException;
+}
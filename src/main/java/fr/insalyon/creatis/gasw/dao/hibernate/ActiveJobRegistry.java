@@ -0,0 +1,273 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.dao.hibernate;
+
+import fr.insalyon.creatis.gasw.bean.Job;
+import fr.insalyon.creatis.gasw.dao.DAOException;
+import fr.insalyon.creatis.gasw.execution.GaswStatus;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+/**
+ * In-memory copy of the active jobs, indexed by status and invocation. It
+ * is loaded from the database at startup and kept in sync by the job DAO
+ * on each write, the database remaining the durable copy. Jobs read from
+ * the database (e.g. when looking for signaled jobs) refresh their entry,
+ * so that statuses set by other processes are picked up, unless the entry
+ * was written after the read started. Jobs are stored and returned as
+ * copies.
+ */
+public class ActiveJobRegistry {
+
+    public static final Set<GaswStatus> ACTIVE_STATUSES = EnumSet.of(
+            GaswStatus.SUCCESSFULLY_SUBMITTED, GaswStatus.QUEUED, GaswStatus.RUNNING,
+            GaswStatus.KILL, GaswStatus.REPLICATE, GaswStatus.RESCHEDULE);
+    private static final Logger logger = LoggerFactory.getLogger(ActiveJobRegistry.class);
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<GaswStatus, Set<String>> byStatus = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<String>> byInvocation = new ConcurrentHashMap<>();
+    // Stamps of the entries written while reads are running, guarded by this
+    private final Map<String, Long> writeStamps = new HashMap<>();
+    private final TreeMap<Long, Integer> openReads = new TreeMap<>();
+    private long sequence;
+
+    /**
+     * Loads the active jobs.
+     *
+     * @param sessionFactory Hibernate session factory
+     * @throws DAOException
+     */
+    public void load(SessionFactory sessionFactory) throws DAOException {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            List<Job> list = session.createNamedQuery("Job.findByStatuses", Job.class)
+                    .setParameterList("statuses", ACTIVE_STATUSES)
+                    .list();
+            session.getTransaction().commit();
+
+            for (Job job : list) {
+                put(job);
+            }
+            logger.info("Loaded {} active jobs.", list.size());
+
+        } catch (HibernateException ex) {
+            logger.error("Error while loading active jobs", ex);
+            throw new DAOException(ex);
+        }
+    }
+
+    public void registerMetrics() {
+        GaswMetrics.register("jobs.active", jobs::size);
+        for (GaswStatus status : ACTIVE_STATUSES) {
+            GaswMetrics.register("jobs.active." + status.name().toLowerCase(), () -> getIndex(byStatus, status).size());
+        }
+    }
+
+    /**
+     * Records the state of a job written to or read from the database. The
+     * job is removed from the registry if it is no longer active.
+     *
+     * @param job Job
+     */
+    public synchronized void put(Job job) {
+        stamp(job.getId());
+        Job previous = jobs.remove(job.getId());
+        if (previous != null) {
+            unindex(previous);
+        }
+        if (ACTIVE_STATUSES.contains(job.getStatus())) {
+            Job copy = new Job(job);
+            jobs.put(copy.getId(), copy);
+            index(copy);
+        }
+    }
+
+    /**
+     * Starts a read of jobs from the database, whose result is passed to
+     * endRead().
+     *
+     * @return Stamp of the read
+     */
+    public synchronized long beginRead() {
+        long stamp = ++sequence;
+        openReads.merge(stamp, 1, Integer::sum);
+        return stamp;
+    }
+
+    /**
+     * Refreshes the entries of jobs read from the database. Entries written
+     * since the read started are newer than the database rows read and are
+     * kept, as well as the jobs rejected by the filter.
+     *
+     * @param stamp Stamp returned by beginRead()
+     * @param list Jobs read, or null if the read failed
+     * @param refreshable Filter of the job IDs that may be refreshed
+     */
+    public synchronized void endRead(long stamp, Collection<Job> list, Predicate<String> refreshable) {
+        if (list != null) {
+            for (Job job : list) {
+                Long written = writeStamps.get(job.getId());
+                if ((written == null || written < stamp) && refreshable.test(job.getId())) {
+                    put(job);
+                }
+            }
+        }
+        if (openReads.merge(stamp, -1, Integer::sum) == 0) {
+            openReads.remove(stamp);
+        }
+        if (openReads.isEmpty()) {
+            writeStamps.clear();
+        } else {
+            long oldest = openReads.firstKey();
+            writeStamps.values().removeIf(written -> written < oldest);
+        }
+    }
+
+    /**
+     * @param id Job ID
+     * @return Whether the job is in the registry
+     */
+    public boolean contains(String id) {
+        return jobs.containsKey(id);
+    }
+
+    /**
+     * Records a status-only update.
+     *
+     * @param id Job ID
+     * @param status New status
+     * @param date Date of the transition
+     * @return false if the job is unknown and became active, in which case
+     * it should be reloaded
+     */
+    public synchronized boolean updateStatus(String id, GaswStatus status, Date date) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return !ACTIVE_STATUSES.contains(status);
+        }
+        Job copy = new Job(job);
+        copy.setStatus(status);
+        if (status == GaswStatus.QUEUED) {
+            copy.setQueued(date);
+        } else if (status == GaswStatus.RUNNING) {
+            copy.setRunning(date);
+        }
+        put(copy);
+        return true;
+    }
+
+    public synchronized void remove(String id) {
+        stamp(id);
+        Job previous = jobs.remove(id);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    /**
+     * @param id Job ID
+     * @return Copy of the job, or null if it is not active
+     */
+    public Job get(String id) {
+        Job job = jobs.get(id);
+        return job == null ? null : new Job(job);
+    }
+
+    public List<Job> getActiveJobs() {
+        return copy(jobs.keySet());
+    }
+
+    public List<Job> getActiveJobs(GaswStatus status) {
+        return copy(getIndex(byStatus, status));
+    }
+
+    public List<Job> getActiveJobsByInvocationID(int invocationID) {
+        return copy(getIndex(byInvocation, invocationID));
+    }
+
+    private List<Job> copy(Collection<String> ids) {
+        List<Job> list = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Job job = jobs.get(id);
+            if (job != null) {
+                list.add(new Job(job));
+            }
+        }
+        return list;
+    }
+
+    private void index(Job job) {
+        byStatus.computeIfAbsent(job.getStatus(), k -> ConcurrentHashMap.newKeySet()).add(job.getId());
+        byInvocation.computeIfAbsent(job.getInvocationID(), k -> ConcurrentHashMap.newKeySet()).add(job.getId());
+    }
+
+    private void unindex(Job job) {
+        Set<String> status = byStatus.get(job.getStatus());
+        if (status != null) {
+            status.remove(job.getId());
+        }
+        Set<String> invocation = byInvocation.get(job.getInvocationID());
+        if (invocation != null) {
+            invocation.remove(job.getId());
+            if (invocation.isEmpty()) {
+                byInvocation.remove(job.getInvocationID());
+            }
+        }
+    }
+
+    private void stamp(String id) {
+        if (!openReads.isEmpty()) {
+            writeStamps.put(id, ++sequence);
+        }
+    }
+
+    private <K> Set<String> getIndex(Map<K, Set<String>> index, K key) {
+        Set<String> ids = index.get(key);
+        return ids == null ? Set.of() : ids;
+    }
+}
@@ -0,0 +1,91 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.dao.hibernate;
+
+import fr.insalyon.creatis.gasw.dao.DAOException;
+import fr.insalyon.creatis.gasw.execution.GaswStatus;
+import java.util.BitSet;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+/**
+ * Set of the invocations that have at least one completed job, kept in
+ * memory as a bit set indexed by invocation ID. It is loaded from the
+ * database at startup and updated by the job DAO whenever a job is written
+ * as completed. Invocations are never removed from the set, as completed
+ * jobs are not expected to change status again.
+ */
+public class CompletedInvocationTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompletedInvocationTracker.class);
+    private final BitSet completed = new BitSet();
+
+    /**
+     * Loads the invocations having completed jobs.
+     *
+     * @param sessionFactory Hibernate session factory
+     * @throws DAOException
+     */
+    public void load(SessionFactory sessionFactory) throws DAOException {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            List<Integer> list = session.createNamedQuery("Job.getCompletedInvocationIDs", Integer.class)
+                    .setParameter("completed", GaswStatus.COMPLETED)
+                    .list();
+            session.getTransaction().commit();
+
+            for (Integer invocationID : list) {
+                markCompleted(invocationID);
+            }
+            logger.info("Loaded {} completed invocations.", list.size());
+
+        } catch (HibernateException ex) {
+            logger.error("Error while loading completed invocations", ex);
+            throw new DAOException(ex);
+        }
+    }
+
+    public synchronized void markCompleted(int invocationID) {
+        if (invocationID >= 0) {
+            completed.set(invocationID);
+        }
+    }
+
+    public synchronized boolean isCompleted(int invocationID) {
+        return invocationID >= 0 && completed.get(invocationID);
+    }
+}
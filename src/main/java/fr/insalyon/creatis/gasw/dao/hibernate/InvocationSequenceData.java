@@ -0,0 +1,76 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.dao.hibernate;
+
+import fr.insalyon.creatis.gasw.bean.InvocationSequence;
+import fr.insalyon.creatis.gasw.dao.DAOException;
+import fr.insalyon.creatis.gasw.dao.InvocationSequenceDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.hibernate.HibernateException;
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+public class InvocationSequenceData implements InvocationSequenceDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvocationSequenceData.class);
+    private SessionFactory sessionFactory;
+
+    public InvocationSequenceData(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public int allocate(String name, int blockSize, int minValue) throws DAOException {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            InvocationSequence sequence = session.get(InvocationSequence.class, name, LockMode.PESSIMISTIC_WRITE);
+            int start;
+            if (sequence == null) {
+                start = minValue;
+                session.persist(new InvocationSequence(name, start + blockSize));
+            } else {
+                start = Math.max(sequence.getNextValue(), minValue);
+                sequence.setNextValue(start + blockSize);
+            }
+            session.getTransaction().commit();
+
+            return start;
+
+        } catch (HibernateException ex) {
+            logger.error("Error while allocating from sequence " + name, ex);
+            throw new DAOException(ex);
+        }
+    }
+}
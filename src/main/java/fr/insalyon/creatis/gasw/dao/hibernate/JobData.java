@@ -37,7 +37,13 @@ import fr.insalyon.creatis.gasw.dao.DAOException;
 import fr.insalyon.creatis.gasw.dao.JobDAO;
 import fr.insalyon.creatis.gasw.execution.GaswStatus;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.hibernate.HibernateException;
@@ -48,9 +54,28 @@ public class JobData implements JobDAO {
 
     private static final Logger logger = LoggerFactory.getLogger(JobData.class);
     private SessionFactory sessionFactory;
+    private JobStatusCoalescer statusCoalescer;
+    private CompletedInvocationTracker completedInvocations;
+    private ActiveJobRegistry activeJobs;
 
     public JobData(SessionFactory sessionFactory) {
+        this(sessionFactory, new JobStatusCoalescer(sessionFactory, 0), null, null);
+    }
+
+    /**
+     * @param sessionFactory Hibernate session factory
+     * @param statusCoalescer Writer of status-only updates
+     * @param completedInvocations Tracker of the completed invocations, or
+     * null to query the database
+     * @param activeJobs Registry of the active jobs, or null to query the
+     * database
+     */
+    public JobData(SessionFactory sessionFactory, JobStatusCoalescer statusCoalescer,
+            CompletedInvocationTracker completedInvocations, ActiveJobRegistry activeJobs) {
         this.sessionFactory = sessionFactory;
+        this.statusCoalescer = statusCoalescer;
+        this.completedInvocations = completedInvocations;
+        this.activeJobs = activeJobs;
     }
 
     @Override
@@ -59,6 +84,7 @@ public class JobData implements JobDAO {
             session.beginTransaction();
             session.merge(job);
             session.getTransaction().commit();
+            trackWrite(job);
 
         } catch (HibernateException ex) {
             logger.error("Error while adding", ex);
@@ -72,11 +98,13 @@ public class JobData implements JobDAO {
      */
     @Override
     public void update(Job job) throws DAOException {
+        statusCoalescer.flush(job.getId());
         synchronized (sessionFactory) {
             try (Session session = sessionFactory.openSession()) {
                 session.beginTransaction();
                 session.merge(job);
                 session.getTransaction().commit();
+                trackWrite(job);
     
             } catch (HibernateException ex) {
                 logger.error("Error while updateing", ex);
@@ -85,6 +113,23 @@ public class JobData implements JobDAO {
         }
     }
 
+    @Override
+    public void updateStatus(Job job, GaswStatus status, Date date) throws DAOException {
+        statusCoalescer.submit(job.getId(), status, date);
+
+        if (activeJobs != null && !activeJobs.updateStatus(job.getId(), status, date)) {
+            Job active = getJobByID(job.getId());
+            if (active != null) {
+                active.setStatus(status);
+                activeJobs.put(active);
+            }
+        }
+
+        if (status == GaswStatus.COMPLETED && completedInvocations != null) {
+            completedInvocations.markCompleted(job.getInvocationID());
+        }
+    }
+
     @Override
     public void remove(Job job) throws DAOException {
         synchronized (sessionFactory) {
@@ -92,6 +137,9 @@ public class JobData implements JobDAO {
                 session.beginTransaction();
                 session.remove(job);
                 session.getTransaction().commit();
+                if (activeJobs != null) {
+                    activeJobs.remove(job.getId());
+                }
 
             } catch (HibernateException ex) {
                 logger.error("Error while removing", ex);
@@ -103,6 +151,12 @@ public class JobData implements JobDAO {
     @Override
     public Job getJobByID(String id) throws DAOException {
 
+        if (activeJobs != null) {
+            Job job = activeJobs.get(id);
+            if (job != null) {
+                return job;
+            }
+        }
         try (Session session = sessionFactory.openSession()) {
             session.beginTransaction();
             Job job = session.createNamedQuery("Job.findById", Job.class)
@@ -121,6 +175,9 @@ public class JobData implements JobDAO {
     @Override
     public List<Job> getActiveJobs() throws DAOException {
 
+        if (activeJobs != null) {
+            return activeJobs.getActiveJobs();
+        }
         try (Session session = sessionFactory.openSession()) {
             session.beginTransaction();
             List<Job> list = session.createNamedQuery("Job.getActive", Job.class)
@@ -144,9 +201,11 @@ public class JobData implements JobDAO {
     @Override
     public List<Job> getJobs(GaswStatus status) throws DAOException {
 
+        ReadStamp read = beginRead();
+        List<Job> list = null;
         try (Session session = sessionFactory.openSession()) {
             session.beginTransaction();
-            List<Job> list = session.createNamedQuery("Job.findByStatus", Job.class)
+            list = session.createNamedQuery("Job.findByStatus", Job.class)
                     .setParameter("status", status).list();
             session.getTransaction().commit();
 
@@ -155,6 +214,33 @@ public class JobData implements JobDAO {
         } catch (HibernateException ex) {
             logger.error("Error while retrieving jobs", ex);
             throw new DAOException(ex);
+        } finally {
+            endRead(read, list);
+        }
+    }
+
+    @Override
+    public Map<GaswStatus, List<Job>> getJobsByStatus(Collection<GaswStatus> statuses) throws DAOException {
+
+        ReadStamp read = beginRead();
+        List<Job> list = null;
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            list = session.createNamedQuery("Job.findByStatuses", Job.class)
+                    .setParameterList("statuses", statuses).list();
+            session.getTransaction().commit();
+
+            Map<GaswStatus, List<Job>> jobs = new EnumMap<>(GaswStatus.class);
+            for (Job job : list) {
+                jobs.computeIfAbsent(job.getStatus(), s -> new ArrayList<>()).add(job);
+            }
+            return jobs;
+
+        } catch (HibernateException ex) {
+            logger.error("Error while retrieving jobs by status", ex);
+            throw new DAOException(ex);
+        } finally {
+            endRead(read, list);
         }
     }
 
@@ -177,9 +263,20 @@ public class JobData implements JobDAO {
         }
     }
 
+    @Override
+    public boolean isInvocationCompleted(int invocationID) throws DAOException {
+        if (completedInvocations != null) {
+            return completedInvocations.isCompleted(invocationID);
+        }
+        return getNumberOfCompletedJobsByInvocationID(invocationID) > 0;
+    }
+
     @Override
     public List<Job> getActiveJobsByInvocationID(int invocationID) throws DAOException {
 
+        if (activeJobs != null) {
+            return activeJobs.getActiveJobsByInvocationID(invocationID);
+        }
         try (Session session = sessionFactory.openSession()) {
             session.beginTransaction();
             List<Job> list = session.createNamedQuery("Job.findActiveByInvocationID", Job.class)
@@ -357,4 +454,116 @@ public class JobData implements JobDAO {
             throw new DAOException(ex);
         }
     }
+
+    @Override
+    public int getMaxInvocationID() throws DAOException {
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            Integer max = session.createNamedQuery("Job.getMaxInvocationID", Integer.class)
+                    .uniqueResult();
+            session.getTransaction().commit();
+
+            return max == null ? 0 : max;
+
+        } catch (HibernateException ex) {
+            logger.error("Error while retrieving max invocation ID", ex);
+            throw new DAOException(ex);
+        }
+    }
+
+    @Override
+    public Integer getInvocationIDByFileName(String fileName) throws DAOException {
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            Integer invocationID = session.createNamedQuery("Job.getInvocationIDByFileName", Integer.class)
+                    .setParameter("fileName", fileName)
+                    .setMaxResults(1)
+                    .uniqueResult();
+            session.getTransaction().commit();
+
+            return invocationID;
+
+        } catch (HibernateException ex) {
+            logger.error("Error while retrieving invocation ID by filename", ex);
+            throw new DAOException(ex);
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getRecentInvocationIDs(int maxResults) throws DAOException {
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            List<Object[]> rows = session.createNamedQuery("Job.getRecentInvocationIDs", Object[].class)
+                    .setMaxResults(maxResults)
+                    .list();
+            session.getTransaction().commit();
+
+            Map<String, Integer> invocationIDs = new LinkedHashMap<>();
+            for (Object[] row : rows) {
+                invocationIDs.put((String) row[0], (Integer) row[1]);
+            }
+            return invocationIDs;
+
+        } catch (HibernateException ex) {
+            logger.error("Error while retrieving recent invocation IDs", ex);
+            throw new DAOException(ex);
+        }
+    }
+
+    /**
+     * Called before a job is written by a unit of work.
+     */
+    void beforeWrite(Job job) throws DAOException {
+        statusCoalescer.flush(job.getId());
+    }
+
+    /**
+     * Called after a job was written by a unit of work.
+     */
+    void afterWrite(Job job) {
+        trackWrite(job);
+    }
+
+    private void trackWrite(Job job) {
+        if (completedInvocations != null && job.getStatus() == GaswStatus.COMPLETED) {
+            completedInvocations.markCompleted(job.getInvocationID());
+        }
+        if (activeJobs != null) {
+            activeJobs.put(job);
+        }
+    }
+
+    private ReadStamp beginRead() {
+        return activeJobs == null ? null
+                : new ReadStamp(activeJobs.beginRead(), statusCoalescer.getWrites());
+    }
+
+    /**
+     * Refreshes the registry with jobs read from the database, except jobs
+     * whose status transition is still pending, as their row is older than
+     * the registry. If pending transitions were written during the read,
+     * the rows read may predate them, so only jobs missing from the
+     * registry are added.
+     */
+    private void endRead(ReadStamp read, List<Job> list) {
+        if (read != null) {
+            boolean flushed = statusCoalescer.getWrites() != read.statusWrites;
+            activeJobs.endRead(read.stamp, list, id -> !statusCoalescer.isPending(id)
+                    && !(flushed && activeJobs.contains(id)));
+        }
+    }
+
+    private static class ReadStamp {
+
+        private final long stamp;
+        private final long statusWrites;
+
+        ReadStamp(long stamp, long statusWrites) {
+            this.stamp = stamp;
+            this.statusWrites = statusWrites;
+        }
+    }
 }
@@ -0,0 +1,148 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.dao.hibernate;
+
+import fr.insalyon.creatis.gasw.bean.Job;
+import fr.insalyon.creatis.gasw.bean.JobMinorStatus;
+import fr.insalyon.creatis.gasw.bean.Node;
+import fr.insalyon.creatis.gasw.dao.DAOException;
+import fr.insalyon.creatis.gasw.dao.JobFinalization;
+import fr.insalyon.creatis.gasw.execution.GaswMinorStatus;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+public class JobFinalizationData implements JobFinalization {
+
+    // same statuses as the MinorStatus.findCheckpointById parameters
+    private static final Set<GaswMinorStatus> CHECKPOINT_STATUSES = EnumSet.of(
+            GaswMinorStatus.CheckPoint_Init, GaswMinorStatus.CheckPoint_Upload);
+    // same statuses as the MinorStatus.findExecutionById parameters
+    private static final Set<GaswMinorStatus> EXECUTION_STATUSES = EnumSet.of(
+            GaswMinorStatus.Started, GaswMinorStatus.Background, GaswMinorStatus.Inputs,
+            GaswMinorStatus.Application, GaswMinorStatus.Outputs, GaswMinorStatus.Finished);
+    private static final Logger logger = LoggerFactory.getLogger(JobFinalizationData.class);
+    private final SessionFactory sessionFactory;
+    private final JobData jobData;
+    private final String jobID;
+    private List<JobMinorStatus> minorStatus;
+    private Node node;
+    private Job job;
+
+    /**
+     * @param sessionFactory Hibernate session factory
+     * @param jobData Job DAO whose caches are kept up to date on commit
+     * @param jobID Job ID
+     */
+    public JobFinalizationData(SessionFactory sessionFactory, JobData jobData, String jobID) {
+        this.sessionFactory = sessionFactory;
+        this.jobData = jobData;
+        this.jobID = jobID;
+    }
+
+    @Override
+    public List<JobMinorStatus> getCheckpoints() throws DAOException {
+        return filter(CHECKPOINT_STATUSES);
+    }
+
+    @Override
+    public List<JobMinorStatus> getExecutionMinorStatus() throws DAOException {
+        return filter(EXECUTION_STATUSES);
+    }
+
+    private List<JobMinorStatus> filter(Set<GaswMinorStatus> statuses) throws DAOException {
+        if (minorStatus == null) {
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                minorStatus = session.createNamedQuery("MinorStatus.findById", JobMinorStatus.class)
+                        .setParameter("jobId", jobID)
+                        .list();
+                session.getTransaction().commit();
+
+            } catch (HibernateException ex) {
+                logger.error("Error while retrieving minor status", ex);
+                throw new DAOException(ex);
+            }
+        }
+        return minorStatus.stream()
+                .filter(status -> statuses.contains(status.getStatus()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void addNode(Node node) {
+        this.node = node;
+    }
+
+    @Override
+    public void update(Job job) {
+        this.job = job;
+    }
+
+    @Override
+    public void commit() throws DAOException {
+        if (node == null && job == null) {
+            return;
+        }
+        if (job != null) {
+            jobData.beforeWrite(job);
+        }
+        synchronized (sessionFactory) {
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                if (node != null) {
+                    session.merge(node);
+                }
+                if (job != null) {
+                    session.merge(job);
+                }
+                session.getTransaction().commit();
+
+            } catch (HibernateException ex) {
+                logger.error("Error while finalizing job " + jobID, ex);
+                throw new DAOException(ex);
+            }
+        }
+        if (job != null) {
+            jobData.afterWrite(job);
+        }
+        node = null;
+        job = null;
+    }
+}
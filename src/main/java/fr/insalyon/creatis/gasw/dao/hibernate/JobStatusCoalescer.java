@@ -0,0 +1,256 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.dao.hibernate;
+
+import fr.insalyon.creatis.gasw.dao.DAOException;
+import fr.insalyon.creatis.gasw.execution.GaswStatus;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+/**
+ * Writes job status transitions with targeted updates. With a coalescing
+ * window, transitions are kept in memory and written every window, so that
+ * only the latest transition of a job within a window reaches the
+ * database. Until then, queries reading the status from the database
+ * (e.g. JobDAO.getJobsByStatus(), or getActiveJobs() without the active
+ * job registry) may return the previous status of a job, for up to one
+ * window.
+ */
+public class JobStatusCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobStatusCoalescer.class);
+    private final SessionFactory sessionFactory;
+    private final Map<String, PendingStatus> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final int window;
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * Transitions are written immediately until start() is called.
+     *
+     * @param sessionFactory Hibernate session factory
+     * @param window Coalescing window in milliseconds, 0 to write each
+     * transition immediately
+     */
+    public JobStatusCoalescer(SessionFactory sessionFactory, int window) {
+        this.sessionFactory = sessionFactory;
+        this.window = window;
+    }
+
+    /**
+     * Starts coalescing transitions and writing them every window, if a
+     * window is set.
+     */
+    public synchronized void start() {
+        if (window > 0 && scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "gasw-status-coalescer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    flush();
+                } catch (DAOException ex) {
+                    // already logged
+                }
+            }, window, window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Publishes the number of written, coalesced and pending transitions.
+     */
+    public void registerMetrics() {
+        GaswMetrics.register("monitor.status.writes", writes::get);
+        GaswMetrics.register("monitor.status.coalesced", coalesced::get);
+        GaswMetrics.register("monitor.status.pending", pending::size);
+    }
+
+    /**
+     * Records a status transition.
+     *
+     * @param id Job ID
+     * @param status New status
+     * @param date Date of the transition, kept as queued or running date
+     * @throws DAOException
+     */
+    public void submit(String id, GaswStatus status, Date date) throws DAOException {
+        PendingStatus update = new PendingStatus(id, status, date);
+        if (scheduler == null) {
+            write(List.of(update));
+        } else if (pending.merge(id, update, PendingStatus::merge) != update) {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the pending transition of a job whose entity is about to be
+     * written in full, so that the transition is not lost and the entity,
+     * written last, wins as it did without coalescing. Waits for a running
+     * flush to complete.
+     *
+     * @param id Job ID
+     * @throws DAOException
+     */
+    public void flush(String id) throws DAOException {
+        if (scheduler != null) {
+            flushLock.lock();
+            try {
+                PendingStatus update = pending.get(id);
+                if (update != null) {
+                    write(List.of(update));
+                    pending.remove(id, update);
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes all pending transitions. A transition stays pending until it is
+     * written, and one merged during the write is written on the next flush.
+     *
+     * @throws DAOException
+     */
+    public void flush() throws DAOException {
+        flushLock.lock();
+        try {
+            List<PendingStatus> updates = new ArrayList<>(pending.values());
+            if (!updates.isEmpty()) {
+                write(updates);
+                for (PendingStatus update : updates) {
+                    pending.remove(update.id, update);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * @param id Job ID
+     * @return Whether a transition of the job is not written yet
+     */
+    public boolean isPending(String id) {
+        return pending.containsKey(id);
+    }
+
+    /**
+     * @return Number of transitions written so far
+     */
+    public long getWrites() {
+        return writes.get();
+    }
+
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                flush();
+            } catch (DAOException ex) {
+                // already logged
+            }
+        }
+        GaswMetrics.unregister("monitor.status.writes");
+        GaswMetrics.unregister("monitor.status.coalesced");
+        GaswMetrics.unregister("monitor.status.pending");
+    }
+
+    private void write(List<PendingStatus> updates) throws DAOException {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (PendingStatus update : updates) {
+                session.createNamedMutationQuery("Job.updateStatus")
+                        .setParameter("id", update.id)
+                        .setParameter("status", update.status)
+                        .setParameter("queued", update.queued, Date.class)
+                        .setParameter("running", update.running, Date.class)
+                        .executeUpdate();
+            }
+            session.getTransaction().commit();
+            writes.addAndGet(updates.size());
+
+        } catch (HibernateException ex) {
+            logger.error("Error while updating status", ex);
+            throw new DAOException(ex);
+        }
+    }
+
+    private static class PendingStatus {
+
+        private final String id;
+        private final GaswStatus status;
+        private final Date queued;
+        private final Date running;
+
+        PendingStatus(String id, GaswStatus status, Date date) {
+            this(id, status,
+                    status == GaswStatus.QUEUED ? date : null,
+                    status == GaswStatus.RUNNING ? date : null);
+        }
+
+        private PendingStatus(String id, GaswStatus status, Date queued, Date running) {
+            this.id = id;
+            this.status = status;
+            this.queued = queued;
+            this.running = running;
+        }
+
+        /**
+         * Keeps the status of the later transition and the dates of both.
+         */
+        PendingStatus merge(PendingStatus later) {
+            return new PendingStatus(id, later.status,
+                    later.queued != null ? later.queued : queued,
+                    later.running != null ? later.running : running);
+        }
+    }
+}
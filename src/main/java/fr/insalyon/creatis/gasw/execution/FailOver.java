@@ -42,6 +42,8 @@ import fr.insalyon.creatis.gasw.bean.SEEntryPoint;
 import fr.insalyon.creatis.gasw.dao.DAOException;
 import fr.insalyon.creatis.gasw.dao.DAOFactory;
 import fr.insalyon.creatis.gasw.dao.DataToReplicateDAO;
+import fr.insalyon.creatis.gasw.util.AdaptivePollingInterval;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
 import java.io.BufferedReader;
 import java.io.Closeable;
 import java.io.IOException;
@@ -61,11 +63,13 @@ public class FailOver extends Thread {
     private static FailOver instance;
     private volatile boolean stop = false;
     private DataToReplicateDAO dataToReplicateDAO;
+    private AdaptivePollingInterval pollingInterval;
+    private GaswRuntime.PeriodicTask replicationTask;
 
     public synchronized static FailOver getInstance() {
         if (instance == null) {
             instance = new FailOver();
-            instance.start();
+            instance.startReplication();
         }
         return instance;
     }
@@ -73,7 +77,9 @@ public class FailOver extends Thread {
     private FailOver() {
         try {
             dataToReplicateDAO = DAOFactory.getDAOFactory().getDataToReplicateDAO();
-        } catch (DAOException ex) {
+            pollingInterval = AdaptivePollingInterval.fromConfiguration(GaswConfiguration.getInstance());
+            GaswMetrics.register("failover.polling.interval.millis", pollingInterval::getInterval);
+        } catch (DAOException | GaswException ex) {
             logger.error("Unable to start Fail Over thread.");
         }
     }
@@ -82,25 +88,8 @@ public class FailOver extends Thread {
     public void run() {
         try {
             while (!stop) {
-
-                for (DataToReplicate data : dataToReplicateDAO.get()) {
-                    try {
-                        replicate(data.getUrl());
-                        dataToReplicateDAO.remove(data);
-
-                    } catch (GaswException ex) {
-
-                        if (data.getRetries() + 1 < GaswConfiguration.getInstance().getFailOverMaxRetry()) {
-                            data.setRetries(data.getRetries() + 1);
-                            data.setEventDate(new Date());
-                            dataToReplicateDAO.update(data);
-                        } else {
-                            logger.warn("Achieved data max attempts to reply '{}'.", data.getUrl().getPath());
-                            dataToReplicateDAO.remove(data);
-                        }
-                    }
-                }
-                Thread.sleep(GaswConfiguration.getInstance().getDefaultSleeptime());
+                replicateData();
+                pollingInterval.sleep();
             }
         } catch (DAOException ex) {
             // do nothing
@@ -111,6 +100,59 @@ public class FailOver extends Thread {
         }
     }
 
+    /**
+     * Starts replicating data, as a periodic task of the GASW runtime if it
+     * is enabled, or on this thread otherwise.
+     */
+    private void startReplication() {
+        try {
+            if (GaswRuntime.isEnabled()) {
+                replicationTask = GaswRuntime.getInstance().schedule("failover", () -> {
+                    try {
+                        return stop ? -1 : replicateData();
+                    } catch (DAOException | GaswException ex) {
+                        logger.error("Error replicating data, stopping fail over", ex);
+                        return -1;
+                    }
+                }, 0);
+                return;
+            }
+        } catch (GaswException ex) {
+            logger.warn("Unable to use the GASW runtime, starting a thread", ex);
+        }
+        start();
+    }
+
+    /**
+     * Tries once to replicate the pending data.
+     *
+     * @return Interval until the next try in milliseconds
+     */
+    private long replicateData() throws DAOException, GaswException {
+
+        List<DataToReplicate> dataList = dataToReplicateDAO.get();
+        pollingInterval.recordChanges(dataList.size());
+
+        for (DataToReplicate data : dataList) {
+            try {
+                replicate(data.getUrl());
+                dataToReplicateDAO.remove(data);
+
+            } catch (GaswException ex) {
+
+                if (data.getRetries() + 1 < GaswConfiguration.getInstance().getFailOverMaxRetry()) {
+                    data.setRetries(data.getRetries() + 1);
+                    data.setEventDate(new Date());
+                    dataToReplicateDAO.update(data);
+                } else {
+                    logger.warn("Achieved data max attempts to reply '{}'.", data.getUrl().getPath());
+                    dataToReplicateDAO.remove(data);
+                }
+            }
+        }
+        return pollingInterval.next(-1);
+    }
+
     public synchronized void addData(URI uri) {
         try {
             String scheme = uri.getScheme();
@@ -132,6 +174,10 @@ public class FailOver extends Thread {
 
     public synchronized void terminate() {
         this.stop = true;
+        if (replicationTask != null) {
+            replicationTask.cancel();
+        }
+        GaswMetrics.unregister("failover.polling.interval.millis");
     }
 
     private void replicate(URI uri) throws GaswException {
@@ -39,20 +39,40 @@ import fr.insalyon.creatis.gasw.dao.DAOException;
 import fr.insalyon.creatis.gasw.dao.DAOFactory;
 import fr.insalyon.creatis.gasw.dao.JobDAO;
 import fr.insalyon.creatis.gasw.dao.NodeDAO;
-import fr.insalyon.creatis.gasw.plugin.ListenerPlugin;
+import fr.insalyon.creatis.gasw.execution.SignalDispatcher.Action;
+import fr.insalyon.creatis.gasw.util.AdaptivePollingInterval;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class GaswMonitor extends Thread {
 
     private static final Logger logger = LoggerFactory.getLogger(GaswMonitor.class);
+    // Statuses set from outside to signal an action on a job
+    private static final Set<GaswStatus> SIGNAL_STATUSES = EnumSet.of(
+            GaswStatus.REPLICATE, GaswStatus.KILL_REPLICA, GaswStatus.KILL,
+            GaswStatus.RESCHEDULE, GaswStatus.UNHOLD_ERROR, GaswStatus.UNHOLD_STALLED);
+
+    // fixed interval used if the configuration cannot be read, in ms
+    private static final int DEFAULT_POLLING_INTERVAL = 20000;
+    private static final AtomicInteger count = new AtomicInteger();
+    private static final Set<String> pollingMetrics = ConcurrentHashMap.newKeySet();
 
-    private volatile static int INVOCATION_ID = 1;
     protected JobDAO jobDAO;
     protected NodeDAO nodeDAO;
+    protected AdaptivePollingInterval pollingInterval;
+    private final String pollingMetricName;
+    private GaswRuntime.PeriodicTask pollingTask;
+    private volatile boolean polling;
 
     protected GaswMonitor() {
         try {
@@ -62,26 +82,127 @@ public abstract class GaswMonitor extends Thread {
         } catch (DAOException ex) {
             // do nothing
         }
+        try {
+            pollingInterval = AdaptivePollingInterval.fromConfiguration(GaswConfiguration.getInstance());
+        } catch (GaswException ex) {
+            logger.warn("Unable to read the polling settings, polling every {} ms",
+                    DEFAULT_POLLING_INTERVAL, ex);
+            pollingInterval = new AdaptivePollingInterval(DEFAULT_POLLING_INTERVAL,
+                    DEFAULT_POLLING_INTERVAL, DEFAULT_POLLING_INTERVAL, 0);
+        }
+        pollingMetricName = "monitor." + getClass().getSimpleName() + "."
+                + count.incrementAndGet() + ".polling.interval.millis";
+        pollingMetrics.add(pollingMetricName);
+        GaswMetrics.register(pollingMetricName, pollingInterval::getInterval);
     }
 
-    protected synchronized void add(Job job) throws GaswException {
-        try {
-            // Defining invocation ID
+    /**
+     * Waits until the next poll. Monitors call it at the end of each cycle
+     * instead of sleeping a fixed time: the interval shortens when job
+     * statuses change or few jobs remain, and grows when nothing changes.
+     *
+     * Monitors keeping their own polling loop opt in by replacing their
+     * sleep with this call; monitors implementing poll() and started with
+     * startPolling() use the adaptive interval without it.
+     *
+     * @param remainingJobs Number of jobs still monitored, negative if unknown
+     * @throws InterruptedException
+     */
+    protected void waitForNextPoll(int remainingJobs) throws InterruptedException {
+        pollingInterval.next(remainingJobs);
+        pollingInterval.sleep();
+    }
+
+    /**
+     * Runs one monitoring cycle. Monitors started with startPolling()
+     * implement it instead of a sleeping loop in run().
+     *
+     * @return Number of jobs still monitored, negative if unknown
+     */
+    protected int poll() {
+        return -1;
+    }
+
+    /**
+     * Runs poll() periodically, at the adaptive polling interval, until
+     * stopPolling() is called. When the GASW runtime is enabled, polls are
+     * scheduled on it; otherwise this monitor thread is started and polls
+     * in its run() loop, which such monitors must not override.
+     *
+     * @throws GaswException
+     */
+    public synchronized void startPolling() throws GaswException {
+        if (polling) {
+            return;
+        }
+        polling = true;
+        if (GaswRuntime.isEnabled()) {
+            pollingTask = GaswRuntime.getInstance().schedule("monitor-" + getClass().getSimpleName(),
+                    () -> pollingInterval.next(poll()), pollingInterval.getInterval());
+        } else {
+            start();
+        }
+    }
 
-            List<Job> list = jobDAO.getByFileName(job.getFileName());
-            if (!list.isEmpty()) {
-                job.setInvocationID(list.get(0).getInvocationID());
-            } else {
-                job.setInvocationID(INVOCATION_ID++);
+    public synchronized void stopPolling() {
+        if (!polling) {
+            return;
+        }
+        polling = false;
+        if (pollingTask != null) {
+            pollingTask.cancel();
+            pollingTask = null;
+        } else {
+            interrupt();
+        }
+    }
+
+    /**
+     * Polling loop of monitors started with startPolling() while the GASW
+     * runtime is disabled.
+     */
+    @Override
+    public void run() {
+        try {
+            while (polling) {
+                pollingInterval.sleep();
+                pollingInterval.next(poll());
             }
+        } catch (InterruptedException ex) {
+            // polling stopped
+        }
+    }
+
+    /**
+     * Stops publishing the polling interval of this monitor.
+     */
+    protected void unregisterMetrics() {
+        pollingMetrics.remove(pollingMetricName);
+        GaswMetrics.unregister(pollingMetricName);
+    }
+
+    /**
+     * Stops publishing the polling intervals of all monitors. Called when
+     * GASW terminates.
+     */
+    public static void unregisterAllMetrics() {
+        for (String name : pollingMetrics) {
+            pollingMetrics.remove(name);
+            GaswMetrics.unregister(name);
+        }
+    }
+
+    protected void add(Job job) throws GaswException {
+        try {
+            // Defining invocation ID
+            job.setInvocationID(InvocationIDAllocator.getInstance().getInvocationID(job.getFileName()));
 
             job.setCreation(new Date());
             jobDAO.add(job);
+            ReplicaGroups.getInstance().added(job, this);
 
             // Listeners notification
-            for (ListenerPlugin listener : GaswConfiguration.getInstance().getListenerPlugins()) {
-                listener.jobSubmitted(job);
-            }
+            ListenerDispatcher.getInstance().jobSubmitted(job);
 
         } catch (DAOException ex) {
             throw new GaswException(ex);
@@ -100,43 +221,66 @@ public abstract class GaswMonitor extends Thread {
      */
     protected void updateStatus(Job job) throws GaswException, DAOException {
 
-        for (ListenerPlugin listener : GaswConfiguration.getInstance().getListenerPlugins()) {
-            listener.jobStatusChanged(job);
-        }
+        ListenerDispatcher.getInstance().jobStatusChanged(job);
         jobDAO.update(job);
+        pollingInterval.recordChange();
+    }
+
+    /**
+     * Sets a new job status, notifies listeners and writes only the status
+     * to the database. Meant for transitions where nothing else changed in
+     * the job; they may be coalesced before reaching the database, but
+     * listeners are notified of each of them.
+     */
+    protected void updateStatus(Job job, GaswStatus status) throws GaswException, DAOException {
+
+        Date date = new Date();
+        job.setStatus(status);
+        if (status == GaswStatus.QUEUED) {
+            job.setQueued(date);
+        } else if (status == GaswStatus.RUNNING) {
+            job.setRunning(date);
+        }
+        ListenerDispatcher.getInstance().jobStatusChanged(job);
+        jobDAO.updateStatus(job, status, date);
+        pollingInterval.recordChange();
     }
 
     protected void verifySignaledJobs() {
 
         try {
-            // Replicate jobs
-            for (Job job : jobDAO.getJobs(GaswStatus.REPLICATE)) {
-                replicate(job);
-            }
-            // Kill job replicas
-            for (Job job : jobDAO.getJobs(GaswStatus.KILL_REPLICA)) {
-                kill(job);
-            }
-            // Kill jobs
-            for (Job job : jobDAO.getJobs(GaswStatus.KILL)) {
-                kill(job);
+            Map<GaswStatus, List<Job>> signaledJobs = jobDAO.getJobsByStatus(SIGNAL_STATUSES);
+            if (signaledJobs.isEmpty()) {
+                return;
             }
+            SignalDispatcher dispatcher = SignalDispatcher.getInstance();
+
+            // Replicate jobs
+            dispatcher.dispatch(Action.REPLICATE,
+                    signaledJobs.getOrDefault(GaswStatus.REPLICATE, List.of()), jobs -> replicate(jobs));
+            // Kill jobs and job replicas
+            List<Job> toKill = new ArrayList<>(signaledJobs.getOrDefault(GaswStatus.KILL_REPLICA, List.of()));
+            toKill.addAll(signaledJobs.getOrDefault(GaswStatus.KILL, List.of()));
+            dispatcher.dispatch(Action.KILL, toKill, jobs -> kill(jobs));
             // Reschedule jobs
-            for (Job job : jobDAO.getJobs(GaswStatus.RESCHEDULE)) {
-                reschedule(job);
-            }
+            dispatcher.dispatch(Action.RESCHEDULE,
+                    signaledJobs.getOrDefault(GaswStatus.RESCHEDULE, List.of()), jobs -> reschedule(jobs));
+
             // Resume held jobs
-            for (Job job : jobDAO.getJobs(GaswStatus.UNHOLD_ERROR)) {
+            List<Job> toResume = new ArrayList<>();
+            for (Job job : signaledJobs.getOrDefault(GaswStatus.UNHOLD_ERROR, List.of())) {
                 job.setStatus(GaswStatus.ERROR);
                 jobDAO.update(job);
-                resume(job);
+                toResume.add(job);
             }
-            for (Job job : jobDAO.getJobs(GaswStatus.UNHOLD_STALLED)) {
+            for (Job job : signaledJobs.getOrDefault(GaswStatus.UNHOLD_STALLED, List.of())) {
                 job.setStatus(GaswStatus.STALLED);
                 jobDAO.update(job);
-                resume(job);
+                toResume.add(job);
             }
-        } catch (DAOException ex) {
+            dispatcher.dispatch(Action.RESUME, toResume, jobs -> resume(jobs));
+
+        } catch (DAOException | GaswException ex) {
             logger.error("Error handling signaled jobs", ex);
         }
     }
@@ -145,7 +289,7 @@ public abstract class GaswMonitor extends Thread {
      * Verifies if a job is replica and handles it in case it is.
      */
     protected boolean isReplica(Job job) throws DAOException {
-        return jobDAO.getNumberOfCompletedJobsByInvocationID(job.getInvocationID()) > 0;
+        return jobDAO.isInvocationCompleted(job.getInvocationID());
     }
 
     protected abstract void kill(Job job);
@@ -153,4 +297,33 @@ public abstract class GaswMonitor extends Thread {
     protected abstract void replicate(Job job);
     protected abstract void killReplicas(Job job);
     protected abstract void resume(Job job);
+
+    /**
+     * Batch hooks called by the signal dispatcher, possibly concurrently.
+     * Monitors able to act on several jobs with a single middleware command
+     * should override them; by default jobs are handled one by one.
+     */
+    protected void kill(List<Job> jobs) {
+        for (Job job : jobs) {
+            kill(job);
+        }
+    }
+
+    protected void reschedule(List<Job> jobs) {
+        for (Job job : jobs) {
+            reschedule(job);
+        }
+    }
+
+    protected void replicate(List<Job> jobs) {
+        for (Job job : jobs) {
+            replicate(job);
+        }
+    }
+
+    protected void resume(List<Job> jobs) {
+        for (Job job : jobs) {
+            resume(job);
+        }
+    }
 }
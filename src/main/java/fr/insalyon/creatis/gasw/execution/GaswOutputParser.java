@@ -36,10 +36,15 @@ import fr.insalyon.creatis.gasw.*;
 import fr.insalyon.creatis.gasw.bean.*;
 import fr.insalyon.creatis.gasw.dao.DAOException;
 import fr.insalyon.creatis.gasw.dao.DAOFactory;
-import fr.insalyon.creatis.gasw.plugin.ListenerPlugin;
+import fr.insalyon.creatis.gasw.dao.JobFinalization;
+import fr.insalyon.creatis.gasw.util.TailBuffer;
 import java.io.*;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,8 +60,13 @@ public abstract class GaswOutputParser extends Thread {
     protected Map<String, URI> uploadedResults;
     protected StringBuilder inputsDownloadErrBuf;
     protected StringBuilder resultsUploadErrBuf;
-    protected StringBuilder appStdOutBuf;
-    protected StringBuilder appStdErrBuf;
+    // only the end of the application output and error is kept in memory;
+    // getAppStdOut() and getAppStdErr() also tell how much was skipped
+    protected TailBuffer appStdOutBuf;
+    protected TailBuffer appStdErrBuf;
+    private JobFinalization finalization;
+    private final CountDownLatch parsed = new CountDownLatch(1);
+    private boolean submitted;
 
     public GaswOutputParser(String jobID) {
         try {
@@ -70,13 +80,14 @@ public abstract class GaswOutputParser extends Thread {
 
             this.inputsDownloadErrBuf = new StringBuilder();
             this.resultsUploadErrBuf = new StringBuilder();
-            this.appStdOutBuf = new StringBuilder();
-            this.appStdErrBuf = new StringBuilder();
+            int tailSize = GaswConfiguration.getInstance().getParserAppTailSize();
+            this.appStdOutBuf = new TailBuffer(tailSize);
+            this.appStdErrBuf = new TailBuffer(tailSize);
 
             this.dataList = new ArrayList<Data>();
             this.uploadedResults = null;
 
-        } catch (IOException | DAOException ex) {
+        } catch (IOException | DAOException | GaswException ex) {
             closeBuffers();
             logger.error("Error creating std out/err " +
                     "files and buffers for {}", jobID, ex);
@@ -96,27 +107,88 @@ public abstract class GaswOutputParser extends Thread {
         }
     }
 
+    /**
+     * Starts parsing on the execution resources of GASW. When the output
+     * parsing pipeline is enabled, the parser is queued on it: while the
+     * pipeline is full, the calling monitor thread is blocked until a parse
+     * completes. Else when the GASW runtime is enabled, it runs as a task
+     * of the runtime. Otherwise it is started as a thread, like start().
+     *
+     * On the pipeline or the runtime, this thread object is never started:
+     * isAlive() stays false and join() returns at once. Callers waiting for
+     * the parse must use awaitCompletion() instead. start() keeps the plain
+     * Thread semantics and must not be called on a submitted parser.
+     *
+     * @throws IllegalThreadStateException if the parser was already
+     * submitted or started
+     * @throws GaswException if the parser could not be queued, e.g. when
+     * interrupted while waiting for the pipeline or after termination; the
+     * parser is then neither submitted nor started
+     */
+    public synchronized void submit() throws GaswException {
+        if (submitted || getState() != State.NEW) {
+            throw new IllegalThreadStateException("Output parser already started");
+        }
+        submitted = true;
+        try {
+            if (OutputParsingPipeline.isEnabled()) {
+                OutputParsingPipeline.getInstance().submit(this);
+            } else if (GaswRuntime.isEnabled()) {
+                GaswRuntime.getInstance().submit("output-parser", this);
+            } else {
+                start();
+            }
+        } catch (GaswException ex) {
+            submitted = false;
+            throw ex;
+        } catch (RejectedExecutionException ex) {
+            submitted = false;
+            throw new GaswException("GASW runtime is terminated", ex);
+        }
+    }
+
+    /**
+     * Parses the job outputs. The node and job updates made while parsing
+     * are gathered in a JobFinalization and written in one transaction,
+     * before listeners are notified.
+     */
     @Override
     public void run() {
+        try {
+            finalization = DAOFactory.getDAOFactory().getJobFinalization(job.getId());
+        } catch (DAOException ex) {
+            logger.warn("Unable to gather the updates of job {}", job.getId(), ex);
+        }
         try {
             GaswOutput gaswOutput = getGaswOutput();
 
-            for (ListenerPlugin listener : GaswConfiguration.getInstance().getListenerPlugins()) {
-                try {
-                    listener.jobFinished(gaswOutput);
-                } catch (Exception ex) {
-                    logger.warn("Error ", ex);
-                }
-            }
             // the job is marked as replicating, because it could be
             // replicated in case of error
             // remove this flag if it is not replicated after all
+            // do not resubmit a job that was deliberately cancelled/killed
+            boolean finished = gaswOutput.getExitCode() == GaswExitCode.SUCCESS
+                    || gaswOutput.getExitCode() == GaswExitCode.EXECUTION_CANCELED
+                    || job.isBeingKilled();
+            if (finished) {
+                job.setReplicating(false);
+                try {
+                    updateJob();
+                } catch (DAOException ex) {
+                    logger.error("Error finalising job {}", job.getId(), ex);
+                }
+            }
+            commitFinalization();
+
+            ListenerDispatcher.getInstance().jobFinished(gaswOutput);
             try {
-                // do not resubmit a job that was deliberately cancelled/killed
-                if (gaswOutput.getExitCode() == GaswExitCode.SUCCESS || gaswOutput.getExitCode() == GaswExitCode.EXECUTION_CANCELED || job.isBeingKilled()) {
-                    job.setReplicating(false);
-                    DAOFactory.getDAOFactory().getJobDAO().update(job);
+                if (finished) {
+                    if (gaswOutput.getExitCode() == GaswExitCode.SUCCESS) {
+                        ReplicaGroups.getInstance().completed(job);
+                    } else {
+                        ReplicaGroups.getInstance().ended(job);
+                    }
                 } else {
+                    ReplicaGroups.getInstance().ended(job);
                     int retries = DAOFactory.getDAOFactory().getJobDAO().getFailedJobsByInvocationID(job.getInvocationID()).size() - 1;
                     if (retries < GaswConfiguration.getInstance().getDefaultRetryCount()) {
                         logger.warn("Job [{}] finished as \"{}\" (retried {} times).", job.getId(), job.getStatus().name(), retries);
@@ -141,6 +213,46 @@ public abstract class GaswOutputParser extends Thread {
 
         } catch (GaswException ex) {
             logger.error("Error processing output for job {}", job.getId(), ex);
+        } finally {
+            commitFinalization();
+            parsed.countDown();
+        }
+    }
+
+    /**
+     * Waits until the outputs are parsed, wherever the parser runs.
+     *
+     * @throws InterruptedException
+     */
+    public void awaitCompletion() throws InterruptedException {
+        parsed.await();
+    }
+
+    /**
+     * Writes the changes gathered while parsing. Later changes are written
+     * directly.
+     */
+    private void commitFinalization() {
+        if (finalization != null) {
+            JobFinalization pending = finalization;
+            finalization = null;
+            try {
+                pending.commit();
+            } catch (DAOException ex) {
+                logger.error("Error finalising job {}", job.getId(), ex);
+            }
+        }
+    }
+
+    /**
+     * Updates the job, on commit of the finalization when parsing from
+     * run().
+     */
+    private void updateJob() throws DAOException {
+        if (finalization != null) {
+            finalization.update(job);
+        } else {
+            DAOFactory.getDAOFactory().getJobDAO().update(job);
         }
     }
 
@@ -160,258 +272,190 @@ public abstract class GaswOutputParser extends Thread {
      * it cause an issue if hibernate try to merge/add the same job inside the db
      */
     protected int parseStdOut(File stdOut) {
-        int exitCode = -1;
-
+        StdOutScanner scanner = newStdOutScanner();
         try {
-            if (job.getQueued() == null) {
-                job.setQueued(job.getCreation());
-            }
-            if (job.getDownload() == null) {
-                job.setDownload(job.getQueued());
-            }
-
-            Node node = new Node();
-            NodeID nodeID = new NodeID();
-            Scanner scanner = new Scanner(new FileInputStream(stdOut));
-
-            boolean isAppExec = false;
-            boolean isInputDownload = false;
-            boolean isResultUpload = false;
-            boolean isAfterExec = false;
-            String lfcHost = "";
-
-            try {
-                while (scanner.hasNextLine()) {
-
-                    String line = scanner.nextLine();
-                    String[] lineSplitted = line.split(" ");
-
-                    // Application Output
-                    if (line.contains("<application_execution>")) {
-                        isAppExec = true;
-                    } else if (line.contains("</application_execution>")) {
-                        isAppExec = false;
-                        isAfterExec = true;
-                    } else if (isAppExec) {
-                        appStdOutWriter.write(line + "\n");
-                        appStdOutBuf.append(line).append("\n");
-                    }
-
-                    // General Output
-                    if (line.contains("Input download time:")) {
-                        int downloadTime = Integer.parseInt(lineSplitted[lineSplitted.length - 2]);
-                        job.setRunning(addDate(job.getDownload(), Calendar.SECOND, downloadTime));
-
-                    } else if (line.contains("Execution time:")) {
-
-                        if (job.getRunning() == null) {
-                            job.setRunning(job.getDownload());
-                        }
-                        int executionTime = Integer.parseInt(lineSplitted[lineSplitted.length - 2]);
-                        job.setUpload(addDate(job.getRunning(), Calendar.SECOND, executionTime));
-
-                    } else if (line.contains("Results upload time:")) {
-                        int uploadTime = Integer.parseInt(lineSplitted[lineSplitted.length - 2]);
-                        job.setEnd(addDate(job.getUpload(), Calendar.SECOND, uploadTime));
-
-                    } else if (line.contains("Exiting with return value") && isAfterExec) {
-                        String[] errmsg = line.split("\\s+");
-                        exitCode = Integer.parseInt(errmsg[errmsg.length - 1]);
-                        job.setExitCode(exitCode);
-
-                    } else if (line.startsWith("===== uname =====")) {
-                        line = scanner.nextLine();
-                        nodeID.setNodeName(line.split(" ")[1]);
-
-                    } else if (line.startsWith("SITE_NAME")) {
-                        nodeID.setSiteName(line.split("=")[1]);
-
-                    } else if (line.startsWith("PBS_O_HOST") && nodeID.getSiteName() == null) {
-                        nodeID.setSiteName(line.split("=")[1]);
-                        String code = nodeID.getNodeName().substring(nodeID.getNodeName().lastIndexOf(".") + 1);
-                        if (code.length() != 2) {
-                            String host = line.split("=")[1];
-                            String countryCode = host.substring(host.lastIndexOf("."));
-                            nodeID.setNodeName(nodeID.getNodeName() + countryCode);
-                        }
-
-                    } else if (line.startsWith("CE_ID")) {
-                        String code = nodeID.getNodeName().substring(nodeID.getNodeName().lastIndexOf(".") + 1);
-                        if (code.length() != 2) {
-                            String host = URI.create("http://" + line.split("=")[1]).getHost();
-                            String countryCode = host.substring(host.lastIndexOf("."));
-                            nodeID.setNodeName(nodeID.getNodeName() + countryCode);
-                        }
-
-                    } else if (line.startsWith("processor")) {
-                        node.setnCpus(Integer.parseInt(line.split(":")[1].trim()) + 1);
-
-                    } else if (line.startsWith("model name")) {
-                        node.setCpuModelName(line.split(":")[1].trim());
-
-                    } else if (line.startsWith("cpu MHz")) {
-                        node.setCpuMhz(Double.parseDouble(line.split(":")[1].trim()));
-
-                    } else if (line.startsWith("cache size")) {
-                        node.setCpuCacheSize(Integer.parseInt(line.split(":")[1].trim().split(" ")[0]));
-
-                    } else if (line.startsWith("bogomips")) {
-                        node.setCpuBogoMips(Double.parseDouble(line.split(":")[1].trim()));
-
-                    } else if (line.startsWith("MemTotal:")) {
-                        node.setMemTotal(Integer.parseInt(line.split("\\s+")[1]));
-
-                    } else if (line.startsWith("<inputs_download>")) {
-                        isInputDownload = true;
-
-                    } else if (line.startsWith("</inputs_download>")) {
-                        isInputDownload = false;
-
-                    } else if (line.startsWith("<file_download") && isInputDownload) {
-                        String downloadedFile = line.substring(line.indexOf("=") + 1, line.length() - 1);
-                        dataList.add(new Data(downloadedFile, Data.Type.Input));
-                        logger.info("Adding input {} for job {}", downloadedFile, job.getId());
-
-                    } else if (line.startsWith("<results_upload>")) {
-                        isResultUpload = true;
-                        uploadedResults = new HashMap<String, URI>();
-
-                    } else if (line.startsWith("</results_upload>")) {
-                        isResultUpload = false;
-
-                    } else if (line.startsWith("LFC_HOST")) {
-                        lfcHost = line.substring(line.indexOf("=") + 1);
-
-                    } else if (line.startsWith("<file_upload") && isResultUpload) {
-                        int uriStartIndex = line.lastIndexOf("uri=");
-                        // the output is like this <file upload id= uri= >
-                        String outputId = line.substring(line.indexOf("id=") + 3, uriStartIndex - 1);
-                        String uploadedFile = line.substring(uriStartIndex + 4, line.length() - 1);
-                        URI uri;
-                        if (GaswUtil.isUri(uploadedFile)) {
-                            uri = new URI(uploadedFile);
-                        } else {
-                            uri = lfcHost.isEmpty()
-                                ? new URI("file://" + uploadedFile)
-                                : new URI("lfn://" + lfcHost + uploadedFile);
-                        }
-                        uploadedResults.put(outputId, uri);
-                        dataList.add(new Data(uri.toString(), Data.Type.Output));
-                        logger.info("Adding output {} {} for job {}" + outputId, uri, job.getId());
-                    }
-                }
-            } catch (Exception ex) {
-                logger.error("Error parsing stdout {}", stdOut.getAbsolutePath(), ex);
-            } finally {
-                scanner.close();
-            }
-            appStdOutWriter.close();
-
-            DAOFactory factory = DAOFactory.getDAOFactory();
-            if (nodeID.getSiteName() != null && nodeID.getNodeName() != null) {
-                node.setNodeID(nodeID);
-                factory.getNodeDAO().add(node);
-                job.setNode(node);
-            }
-
-            // Parse checkpoint
-            parseCheckpoint();
-
-            // Update Job
-            job.setData(dataList);
-            if (job.getEnd() == null) {
-                job.setEnd(new Date());
-            }
-
-            factory.getJobDAO().update(job);
+            scanStdOut(scanner, stdOut);
+            saveStdOut(scanner);
 
         } catch (DAOException | IOException ex) {
             closeBuffers();
             logger.error("Error parsing stdout {}", stdOut.getAbsolutePath(), ex);
         }
-        return exitCode;
+        return scanner.getExitCode();
     }
 
     protected int parseStdErr(File stdErr, int exitCode) {
+        StdErrScanner scanner = newStdErrScanner(job, exitCode);
         try {
-            Scanner scanner = new Scanner(new FileInputStream(stdErr));
+            scanStdErr(scanner, stdErr);
+            updateJob();
 
-            try {
-                boolean isAppExec = false;
-                boolean isInputsDownload = false;
-                boolean isResultsUpload = false;
-                boolean isUploadTest = false;
-
-                while (scanner.hasNext()) {
-
-                    String line = scanner.nextLine();
-
-                    // Application Error
-                    if (line.contains("<application_execution>")) {
-                        isAppExec = true;
-
-                    } else if (line.contains("</application_execution>")) {
-                        isAppExec = false;
-
-                    } else if (line.contains("<inputs_download>")) {
-                        isInputsDownload = true;
-
-                    } else if (line.contains("</inputs_download>")) {
-                        isInputsDownload = false;
+        } catch (DAOException | IOException ex) {
+            closeBuffers();
+            logger.error("Error parsing stderr {}", stdErr.getAbsolutePath(), ex);
 
-                    } else if (line.contains("<results_upload>")) {
-                        isResultsUpload = true;
+        }
+        return scanner.getExitCode();
+    }
 
-                    } else if (line.contains("</results_upload>")) {
-                        isResultsUpload = false;
+    /**
+     * Parses the standard output and error at the same time, the error
+     * being scanned on a virtual thread, and persists the job once. The
+     * result is the same as parseStdErr(stdErr, parseStdOut(stdOut)): the
+     * exit code found in the error, if any, wins.
+     *
+     * @param stdOut Job standard output
+     * @param stdErr Job standard error
+     * @return Exit code, or -1 if none was found
+     */
+    protected int parseStdOutAndErr(File stdOut, File stdErr) {
+        StdOutScanner outScanner = newStdOutScanner();
+        StdErrScanner errScanner = newStdErrScanner(null, -1);
+        FutureTask<Void> errTask = new FutureTask<>(() -> {
+            scanStdErr(errScanner, stdErr);
+            return null;
+        });
+        Thread errThread = Thread.ofVirtual().name("gasw-stderr-" + job.getId()).start(errTask);
+
+        boolean outScanned = false;
+        try {
+            scanStdOut(outScanner, stdOut);
+            outScanned = true;
+        } catch (IOException ex) {
+            logger.error("Error parsing stdout {}", stdOut.getAbsolutePath(), ex);
+        }
+        int exitCode = outScanner.getExitCode();
+        boolean errScanned = false;
+        try {
+            errTask.get();
+            errScanned = true;
+        } catch (ExecutionException ex) {
+            logger.error("Error parsing stderr {}", stdErr.getAbsolutePath(), ex.getCause());
+        } catch (InterruptedException ex) {
+            logger.error("Interrupted while parsing stderr {}", stdErr.getAbsolutePath(), ex);
+            // the scan still writes to the error buffers: wait for it to stop
+            // before they are closed
+            errTask.cancel(true);
+            joinUninterruptibly(errThread);
+            Thread.currentThread().interrupt();
+        }
+        if (errScanner.isExitCodeFound()) {
+            exitCode = errScanner.getExitCode();
+            job.setExitCode(exitCode);
+        }
+        if (!outScanned || !errScanned) {
+            closeBuffers();
+        }
 
-                    } else if (line.contains("<upload_test>")) {
-                        isUploadTest = true;
+        try {
+            if (outScanned) {
+                saveStdOut(outScanner);
+            } else {
+                updateJob();
+            }
+        } catch (DAOException ex) {
+            closeBuffers();
+            logger.error("Error saving job {}", job.getId(), ex);
+        }
+        return exitCode;
+    }
 
-                    } else if (line.contains("</upload_test>")) {
-                        isUploadTest = false;
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-                    } else if (isAppExec) {
-                        appStdErrWriter.write(line + "\n");
-                        appStdErrBuf.append(line).append("\n");
+    private StdOutScanner newStdOutScanner() {
+        if (job.getQueued() == null) {
+            job.setQueued(job.getCreation());
+        }
+        if (job.getDownload() == null) {
+            job.setDownload(job.getQueued());
+        }
+        return new StdOutScanner(job, appStdOutWriter, appStdOutBuf, dataList);
+    }
 
-                    } else if (isInputsDownload) {
-                        inputsDownloadErrBuf.append(line).append("\n");
+    private StdErrScanner newStdErrScanner(Job job, int exitCode) {
+        return new StdErrScanner(job, appStdErrWriter, appStdErrBuf,
+                inputsDownloadErrBuf, resultsUploadErrBuf, exitCode);
+    }
 
-                    } else if (isResultsUpload) {
-                        resultsUploadErrBuf.append(line).append("\n");
+    /**
+     * Scans the standard output. Parsing errors are logged, and what was
+     * found until then is kept.
+     *
+     * @throws IOException if the output cannot be opened
+     */
+    private void scanStdOut(StdOutScanner scanner, File stdOut) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(stdOut))) {
+            scanner.scan(reader);
+        } catch (FileNotFoundException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            logger.error("Error parsing stdout {}", stdOut.getAbsolutePath(), ex);
+        } finally {
+            if (scanner.getUploadedResults() != null) {
+                uploadedResults = scanner.getUploadedResults();
+            }
+        }
+        appStdOutWriter.close();
+    }
 
-                    } else if (isUploadTest) {
-                        resultsUploadErrBuf.append(line).append("\n");
-                    }
+    private void scanStdErr(StdErrScanner scanner, File stdErr) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(stdErr))) {
+            scanner.scan(reader);
+        }
+        appStdErrWriter.close();
+    }
 
-                    if (line.contains("Exiting with return value")) {
-                        String[] errmsg = line.split("\\s+");
-                        exitCode = Integer.valueOf(errmsg[errmsg.length - 1]).intValue();
-                        job.setExitCode(exitCode);
-                    }
-                }
-            } finally {
-                scanner.close();
+    /**
+     * Stores the node, checkpoints, data and end date found in the standard
+     * output, and updates the job.
+     */
+    private void saveStdOut(StdOutScanner scanner) throws DAOException {
+        Node node = scanner.getNode();
+        NodeID nodeID = scanner.getNodeID();
+        if (nodeID.getSiteName() != null && nodeID.getNodeName() != null) {
+            node.setNodeID(nodeID);
+            if (finalization != null) {
+                finalization.addNode(node);
+            } else {
+                DAOFactory.getDAOFactory().getNodeDAO().add(node);
             }
-            appStdErrWriter.close();
-            DAOFactory.getDAOFactory().getJobDAO().update(job);
+            job.setNode(node);
+        }
 
-        } catch (DAOException | IOException ex) {
-            closeBuffers();
-            logger.error("Error parsing stderr {}", stdErr.getAbsolutePath(), ex);
+        // Parse checkpoint
+        parseCheckpoint();
 
+        // Update Job
+        job.setData(dataList);
+        if (job.getEnd() == null) {
+            job.setEnd(new Date());
         }
-        return exitCode;
+
+        updateJob();
     }
 
     protected void parseNonStdOut(int exitCode) {
 
         try {
             job.setEnd(new Date());
-            DAOFactory factory = DAOFactory.getDAOFactory();
+            List<JobMinorStatus> executionMinorStatus = finalization != null
+                    ? finalization.getExecutionMinorStatus()
+                    : DAOFactory.getDAOFactory().getJobMinorStatusDAO().getExecutionMinorStatus(job.getId());
 
-            for (JobMinorStatus minorStatus : factory.getJobMinorStatusDAO().getExecutionMinorStatus(job.getId())) {
+            for (JobMinorStatus minorStatus : executionMinorStatus) {
                 switch (minorStatus.getStatus()) {
                     case Application:
                         job.setRunning(minorStatus.getDate());
@@ -422,7 +466,7 @@ public abstract class GaswOutputParser extends Thread {
             }
             parseCheckpoint();
             job.setExitCode(exitCode);
-            factory.getJobDAO().update(job);
+            updateJob();
 
         } catch (DAOException ex) {
             closeBuffers();
@@ -433,9 +477,9 @@ public abstract class GaswOutputParser extends Thread {
     private void parseCheckpoint() {
 
         try {
-            DAOFactory factory = DAOFactory.getDAOFactory();
-
-            List<JobMinorStatus> list = factory.getJobMinorStatusDAO().getCheckpoints(job.getId());
+            List<JobMinorStatus> list = finalization != null
+                    ? finalization.getCheckpoints()
+                    : DAOFactory.getDAOFactory().getJobMinorStatusDAO().getCheckpoints(job.getId());
 
             if (!list.isEmpty()) {
                 int sumCheckpointInit = 0;
@@ -475,11 +519,11 @@ public abstract class GaswOutputParser extends Thread {
     protected File saveFile(String extension, String dir, String content) {
         FileWriter fstream = null;
         try {
-            File stdDir = new File(dir);
+            File stdDir = getJobDirectory(dir);
             if (!stdDir.exists()) {
-                stdDir.mkdir();
+                stdDir.mkdirs();
             }
-            File stdFile = new File(dir + "/" + job.getFileName() + ".sh" + extension);
+            File stdFile = new File(stdDir, job.getFileName() + ".sh" + extension);
             fstream = new FileWriter(stdFile);
             BufferedWriter out = new BufferedWriter(fstream);
             out.write(content);
@@ -518,12 +562,26 @@ public abstract class GaswOutputParser extends Thread {
     }
 
     protected File getAppStdFile(String extension, String dir) {
-        File stdDir = new File(dir);
+        File stdDir = getJobDirectory(dir);
 
         if (!stdDir.exists()) {
             stdDir.mkdirs();
         }
-        return new File(dir + "/" + getAppStdFileName(extension));
+        return new File(stdDir, getAppStdFileName(extension));
+    }
+
+    /**
+     * Gets the directory holding the files of this job under a root
+     * directory, according to the configured layout.
+     */
+    protected File getJobDirectory(String dir) {
+        try {
+            return JobFileResolver.getInstance().getDirectory(dir,
+                    JobFileResolver.getJobName(job.getFileName())).toFile();
+        } catch (GaswException ex) {
+            logger.warn("Unable to resolve the directory of " + job.getFileName() + ", using " + dir, ex);
+            return new File(dir);
+        }
     }
 
     protected String getAppStdFileName(String extension) {
@@ -538,19 +596,47 @@ public abstract class GaswOutputParser extends Thread {
         return resultsUploadErrBuf.toString();
     }
 
+    /**
+     * @return End of the application error, preceded by a notice if its
+     * beginning was dropped
+     */
     protected String getAppStdErr() {
-        return appStdErrBuf.toString();
+        return getTail(appStdErrBuf, appStdErr);
     }
 
+    /**
+     * @return End of the application output, preceded by a notice if its
+     * beginning was dropped
+     */
     protected String getAppStdOut() {
-        return appStdOutBuf.toString();
+        return getTail(appStdOutBuf, appStdOut);
     }
 
-    private Date addDate(Date dateToBeAdded, int field, int amount) {
+    /**
+     * Opens the full application error, once parsed.
+     *
+     * @return Reader of the application error file
+     * @throws IOException
+     */
+    protected Reader openAppStdErr() throws IOException {
+        return new BufferedReader(new FileReader(appStdErr));
+    }
+
+    /**
+     * Opens the full application output, once parsed.
+     *
+     * @return Reader of the application output file
+     * @throws IOException
+     */
+    protected Reader openAppStdOut() throws IOException {
+        return new BufferedReader(new FileReader(appStdOut));
+    }
 
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(dateToBeAdded);
-        calendar.add(field, amount);
-        return calendar.getTime();
+    private String getTail(TailBuffer buffer, File file) {
+        if (!buffer.isTruncated()) {
+            return buffer.toString();
+        }
+        return "[" + (buffer.getTotalLength() - buffer.length()) + " characters skipped, see "
+                + file.getAbsolutePath() + "]\n" + buffer;
     }
 }
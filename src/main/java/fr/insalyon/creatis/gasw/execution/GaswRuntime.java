@@ -0,0 +1,271 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.GaswConfiguration;
+import fr.insalyon.creatis.gasw.GaswException;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Internal runtime running GASW background work. Tasks belong to named
+ * groups (e.g. one per monitor, or output parsing). Each task runs on its
+ * own virtual thread, and periodic tasks are triggered by a small shared
+ * scheduler. The runtime publishes, per group, the number of completed and
+ * running tasks and their average and maximum durations, and drains the
+ * running tasks on termination.
+ */
+public class GaswRuntime {
+
+    private static final Logger logger = LoggerFactory.getLogger(GaswRuntime.class);
+    private static GaswRuntime instance;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, TaskGroup> groups;
+
+    public synchronized static GaswRuntime getInstance() throws GaswException {
+        if (instance == null) {
+            instance = new GaswRuntime(GaswConfiguration.getInstance().getRuntimeSchedulerSize());
+        }
+        return instance;
+    }
+
+    /**
+     * Tells whether GASW components should run on the runtime rather than
+     * on their own threads.
+     *
+     * @return true if the runtime is enabled
+     * @throws GaswException
+     */
+    public static boolean isEnabled() throws GaswException {
+        return GaswConfiguration.getInstance().isRuntimeEnabled();
+    }
+
+    private GaswRuntime(int schedulerSize) {
+        AtomicInteger count = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(Math.max(1, schedulerSize), r -> {
+            Thread thread = new Thread(r, "gasw-scheduler-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        groups = new ConcurrentHashMap<>();
+        logger.info("Started GASW runtime with {} scheduler threads.", schedulerSize);
+    }
+
+    /**
+     * Runs a task on a new virtual thread.
+     *
+     * @param group Task group name
+     * @param task Task
+     * @return Future of the task
+     */
+    public Future<?> submit(String group, Runnable task) {
+        return getGroup(group).submit(task);
+    }
+
+    /**
+     * Runs a task repeatedly. Each run returns the delay until the next one,
+     * so that the period can adapt to the activity; a negative delay stops
+     * the task. A run never overlaps with the previous one.
+     *
+     * @param group Task group name
+     * @param task Task returning the delay until its next run in ms
+     * @param initialDelay Delay until the first run in milliseconds
+     * @return Handle to cancel the task
+     */
+    public PeriodicTask schedule(String group, LongSupplier task, long initialDelay) {
+        PeriodicTask periodicTask = new PeriodicTask(getGroup(group), task);
+        periodicTask.scheduleNext(initialDelay);
+        return periodicTask;
+    }
+
+    /**
+     * Stops the runtime. Periodic tasks are no longer triggered and, unless
+     * force is set, running tasks are given the drain timeout to complete.
+     *
+     * @param force Whether running tasks are interrupted right away
+     */
+    public synchronized static void terminate(boolean force) {
+        if (instance != null) {
+            instance.scheduler.shutdownNow();
+            long timeout = 0;
+            if (!force) {
+                try {
+                    timeout = GaswConfiguration.getInstance().getRuntimeDrainTimeout();
+                } catch (GaswException ex) {
+                    // do nothing
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+            for (TaskGroup group : instance.groups.values()) {
+                group.drain(deadline);
+            }
+            instance = null;
+        }
+    }
+
+    private TaskGroup getGroup(String name) {
+        return groups.computeIfAbsent(name, TaskGroup::new);
+    }
+
+    /**
+     * Handle of a task scheduled with schedule().
+     */
+    public class PeriodicTask {
+
+        private final TaskGroup group;
+        private final LongSupplier task;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> next;
+
+        private PeriodicTask(TaskGroup group, LongSupplier task) {
+            this.group = group;
+            this.task = task;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> future = next;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void scheduleNext(long delay) {
+            if (cancelled || delay < 0) {
+                return;
+            }
+            try {
+                next = scheduler.schedule(() -> group.submit(this::runOnce), delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                cancelled = true;
+            }
+        }
+
+        private void runOnce() {
+            long delay = -1;
+            try {
+                if (!cancelled) {
+                    delay = task.getAsLong();
+                }
+            } finally {
+                scheduleNext(delay);
+            }
+        }
+    }
+
+    /**
+     * Tasks of a group, each run on its own virtual thread and timed.
+     */
+    private static class TaskGroup {
+
+        private final String name;
+        private final ExecutorService executor;
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicInteger running = new AtomicInteger();
+
+        TaskGroup(String name) {
+            this.name = name;
+            this.executor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("gasw-" + name + "-", 1).factory());
+
+            String prefix = "runtime." + name;
+            GaswMetrics.register(prefix + ".tasks", completed::sum);
+            GaswMetrics.register(prefix + ".running", running::get);
+            GaswMetrics.register(prefix + ".avg.micros", this::getAverageMicros);
+            GaswMetrics.register(prefix + ".max.micros",
+                    () -> TimeUnit.NANOSECONDS.toMicros(maxNanos.get()));
+        }
+
+        Future<?> submit(Runnable task) {
+            return executor.submit(() -> {
+                long start = System.nanoTime();
+                running.incrementAndGet();
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    logger.error("Error running task of group " + name, ex);
+                } finally {
+                    long duration = System.nanoTime() - start;
+                    running.decrementAndGet();
+                    completed.increment();
+                    totalNanos.add(duration);
+                    maxNanos.accumulateAndGet(duration, Math::max);
+                }
+            });
+        }
+
+        void drain(long deadline) {
+            executor.shutdown();
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    logger.warn("Interrupting {} running tasks of group {}.", running.get(), name);
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException ex) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            String prefix = "runtime." + name;
+            GaswMetrics.unregister(prefix + ".tasks");
+            GaswMetrics.unregister(prefix + ".running");
+            GaswMetrics.unregister(prefix + ".avg.micros");
+            GaswMetrics.unregister(prefix + ".max.micros");
+        }
+
+        private long getAverageMicros() {
+            long count = completed.sum();
+            return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.sum() / count);
+        }
+    }
+}
@@ -32,16 +32,12 @@
  */
 package fr.insalyon.creatis.gasw.execution;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,10 +47,12 @@ import fr.insalyon.creatis.gasw.GaswConstants;
 import fr.insalyon.creatis.gasw.GaswException;
 import fr.insalyon.creatis.gasw.GaswInput;
 import fr.insalyon.creatis.gasw.script.MoteurliteConfigGenerator;
+import fr.insalyon.creatis.gasw.script.SharedScriptPublisher;
 
 public abstract class GaswSubmit {
 
     private static final Logger logger = LoggerFactory.getLogger(GaswSubmit.class);
+    private static final Map<String, String> preparedScripts = new ConcurrentHashMap<>();
     protected GaswInput gaswInput;
     protected String scriptName;
     protected String jdlName;
@@ -75,6 +73,36 @@ public abstract class GaswSubmit {
     public abstract String submit() throws GaswException;
 
     protected String generateScript() throws GaswException {
+        String scriptName = preparedScripts.remove(gaswInput.getJobId());
+
+        if (scriptName == null) {
+            scriptName = publishArtifacts(gaswInput);
+        }
+        return scriptName;
+    }
+
+    /**
+     * Generates the script, configuration and invocation of a job ahead of
+     * its submission. The next call to generateScript() for this job reuses
+     * them instead of generating them again.
+     *
+     * @param gaswInput Job inputs
+     * @throws GaswException
+     */
+    public static void prepare(GaswInput gaswInput) throws GaswException {
+        preparedScripts.put(gaswInput.getJobId(), publishArtifacts(gaswInput));
+    }
+
+    /**
+     * Forgets the artifacts prepared for a job that will not be submitted.
+     *
+     * @param gaswInput Job inputs
+     */
+    public static void discard(GaswInput gaswInput) {
+        preparedScripts.remove(gaswInput.getJobId());
+    }
+
+    private static String publishArtifacts(GaswInput gaswInput) throws GaswException {
         try {
             String scriptName;
 
@@ -82,14 +110,19 @@ public abstract class GaswSubmit {
             logger.info("MoteurLite is enabled, generating Moteurlite-specific script.");
             
             // Generate the Moteurlite-specific configuration
-            Map<String, String> configMoteurlite = MoteurliteConfigGenerator.getInstance().generateConfig(gaswInput, minorStatusServiceGenerator);
+            byte[] configMoteurlite = MoteurliteConfigGenerator.getInstance().renderConfig(gaswInput);
             
             // Publish the configuration and invocation
             publishConfiguration(gaswInput.getJobId(), configMoteurlite);
             publishInvocation(gaswInput.getJobId(), gaswInput.getInvocationString());
+
+            // List large input sets in a manifest next to the invocation
+            if (MoteurliteConfigGenerator.getInstance().useInputsManifest(gaswInput)) {
+                publishInputsManifest(gaswInput);
+            }
             
             // Publish the script itself
-            scriptName = publishMoteurLiteScript();
+            scriptName = publishMoteurLiteScript(gaswInput.getJobId());
     
             return scriptName;
             
@@ -99,90 +132,67 @@ public abstract class GaswSubmit {
         }
     }
 
-    private String publishMoteurLiteScript() throws IOException, GaswException {
+    private static String publishMoteurLiteScript(String jobId) throws IOException, GaswException {
         prepareScriptDir();
     
         try {
-            // If MoteurLite is enabled, use the jobId as the script name
-            String fileName = gaswInput.getJobId();
-            Path destScriptFile = Paths.get(GaswConstants.SCRIPT_ROOT, fileName);
-            try (InputStream is = getClass().getClassLoader().getResourceAsStream("script.sh")) {
-                Files.copy(is, destScriptFile, StandardCopyOption.REPLACE_EXISTING);
-            }     
-            return fileName;
+            // The script name is relative to the script root, so that it
+            // includes the sub-directories of the sharded layout
+            Path destScriptFile = JobFileResolver.getInstance().getScriptFile(JobFileResolver.getJobName(jobId));
+            JobArtifactWriter writer = JobArtifactWriter.getInstance();
+            writer.ensureDirectory(destScriptFile.getParent());
+            try {
+                SharedScriptPublisher.getInstance().publish(destScriptFile);
+            } catch (NoSuchFileException ex) {
+                // the script directory was removed since it was checked
+                writer.invalidate(destScriptFile.getParent());
+                writer.ensureDirectory(destScriptFile.getParent());
+                SharedScriptPublisher.getInstance().publish(destScriptFile);
+            }
+            return JobFileResolver.getRelativeName(GaswConstants.SCRIPT_ROOT, destScriptFile);
         } catch (Exception e) {
             logger.error("Error getting script file from classpath", e);
             throw new GaswException(e);
         }
     }
 
-    private void prepareScriptDir() throws IOException {
+    private static void prepareScriptDir() throws IOException, GaswException {
         // Ensure the script directory exists
-        File scriptsDir = new File(GaswConstants.SCRIPT_ROOT);
-        if (!scriptsDir.exists()) {
-            scriptsDir.mkdir();
-        }
+        JobArtifactWriter.getInstance().ensureDirectory(Paths.get(GaswConstants.SCRIPT_ROOT));
     }
+
     protected String publishJdl(String scriptName, String jdl) {
 
         try {
-            File jdlDir = new File(GaswConstants.JDL_ROOT);
-            if (!jdlDir.exists()) {
-                jdlDir.mkdir();
-            }
-            String fileName = scriptName.substring(0, scriptName.lastIndexOf(".")) + ".jdl";
-            writeToFile(GaswConstants.JDL_ROOT + "/" + fileName, jdl);
+            Path jdlFile = JobFileResolver.getInstance().getJdlFile(JobFileResolver.getJobName(scriptName));
+            JobArtifactWriter.getInstance().write(jdlFile, jdl);
 
-            return fileName;
+            return JobFileResolver.getRelativeName(GaswConstants.JDL_ROOT, jdlFile);
 
-        } catch (IOException ex) {
+        } catch (IOException | GaswException ex) {
             logger.error("Failed to publishJdl", ex);
             return null;
         }
     }
 
-    /**
-     * Writes a string to a file.
-     *
-     * @param filePath Absolute file path.
-     * @param contents String to be written.
-     * @throws IOException
-     */
-    private void writeToFile(String filePath, String contents) throws IOException {
-        FileWriter fstream = new FileWriter(filePath);
-        BufferedWriter out = new BufferedWriter(fstream);
-        out.write(contents);
-        out.close();
-        fstream.close();
+    private static void publishConfiguration(String jobId, byte[] config)
+            throws IOException, GaswException {
+        Path configFile = JobFileResolver.getInstance().getConfigurationFile(JobFileResolver.getJobName(jobId));
+        JobArtifactWriter.getInstance().write(configFile, config);
     }
 
-    private void publishConfiguration(String jobId, Map<String, String> config) throws IOException {
-        StringBuilder string = new StringBuilder();
-        for (String key : config.keySet()) {
-            // remove leading and trailing quotes as this can mess up bash config
-            String value = config.get(key);
-            value = value.replaceAll("^\"+", "");
-            value = value.replaceAll("\"+$", "");
-            string.append(key).append("=\"").append(value).append("\"\n");
-        }
-
-        File confDir = new File(GaswConstants.CONFIG_DIR);
-        if (!confDir.exists()) {
-            confDir.mkdir();
-        }
-
-        File configFile = new File(confDir, jobId.substring(0, jobId.lastIndexOf(".")) + "-configuration.sh");
-        writeToFile(configFile.getAbsolutePath(), string.toString());
-
+    private static void publishInputsManifest(GaswInput gaswInput)
+            throws IOException, GaswException {
+        Path manifestFile = JobFileResolver.getInstance().getInputsManifestFile(
+                JobFileResolver.getJobName(gaswInput.getJobId()),
+                GaswConfiguration.getInstance().isSubmitManifestCompress());
+        JobArtifactWriter.getInstance().write(manifestFile,
+                MoteurliteConfigGenerator.getInstance().renderInputsManifest(gaswInput));
     }
 
-    private void publishInvocation(String jobId, String invocationMoteurlite) throws IOException {
-        File invoDir = new File(GaswConstants.INVOCATION_DIR);
-        if (!invoDir.exists()) {
-            invoDir.mkdir();
-        }
-
-        String invoFileName = jobId.substring(0, jobId.lastIndexOf(".")) + "-invocation.json";
-        writeToFile(invoDir.getAbsolutePath() + "/" + invoFileName, invocationMoteurlite);
+    private static void publishInvocation(String jobId, String invocationMoteurlite)
+            throws IOException, GaswException {
+        Path invocationFile = JobFileResolver.getInstance().getInvocationFile(JobFileResolver.getJobName(jobId));
+        JobArtifactWriter.getInstance().write(invocationFile, invocationMoteurlite);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,173 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.GaswConfiguration;
+import fr.insalyon.creatis.gasw.GaswException;
+import fr.insalyon.creatis.gasw.dao.DAOException;
+import fr.insalyon.creatis.gasw.dao.DAOFactory;
+import fr.insalyon.creatis.gasw.dao.InvocationSequenceDAO;
+import fr.insalyon.creatis.gasw.dao.JobDAO;
+import fr.insalyon.creatis.gasw.util.BoundedCache;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Assigns invocation IDs to jobs. Jobs sharing a file name (replicas,
+ * resubmissions) share the same invocation ID. Recently used file names
+ * are kept in a bounded cache, warmed at startup with the most recent
+ * file names of the database. While the cache holds every file name known
+ * to the database and to this process (i.e. they all fit and none was
+ * evicted), a file name missing from it is new and is not looked up;
+ * otherwise missing file names are looked up in the database on demand.
+ * This assumes a single GASW process writes to the database. New IDs are
+ * taken from blocks reserved in the
+ * database (hi-lo), so they remain unique across restarts while the
+ * database is only accessed once per block.
+ */
+public class InvocationIDAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvocationIDAllocator.class);
+    private static final String SEQUENCE_NAME = "invocation";
+    private static final int LOCK_STRIPES = 64;
+    private static InvocationIDAllocator instance;
+    private final InvocationSequenceDAO sequenceDAO;
+    private final JobDAO jobDAO;
+    private final BoundedCache<String, Integer> invocationIDs;
+    private final Object[] locks;
+    private final int blockSize;
+    private final int minValue;
+    private final boolean warmedComplete;
+    private int next;
+    private int limit;
+
+    public synchronized static InvocationIDAllocator getInstance() throws GaswException {
+        if (instance == null) {
+            instance = new InvocationIDAllocator();
+        }
+        return instance;
+    }
+
+    private InvocationIDAllocator() throws GaswException {
+        try {
+            DAOFactory factory = DAOFactory.getDAOFactory();
+            GaswConfiguration conf = GaswConfiguration.getInstance();
+            sequenceDAO = factory.getInvocationSequenceDAO();
+            jobDAO = factory.getJobDAO();
+            int cacheSize = Math.max(1, conf.getInvocationIDCacheSize());
+            invocationIDs = new BoundedCache<>(cacheSize, 0);
+            warmedComplete = warm(cacheSize);
+            minValue = jobDAO.getMaxInvocationID() + 1;
+            blockSize = Math.max(1, conf.getInvocationIDBlockSize());
+            locks = new Object[LOCK_STRIPES];
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                locks[i] = new Object();
+            }
+            GaswMetrics.register("invocation.ids.cache.size", invocationIDs::size);
+            GaswMetrics.register("invocation.ids.cache.hits", invocationIDs::getHits);
+            GaswMetrics.register("invocation.ids.cache.misses", invocationIDs::getMisses);
+
+        } catch (DAOException ex) {
+            throw new GaswException(ex);
+        }
+    }
+
+    /**
+     * Fills the cache with the most recent file names of the database, the
+     * oldest first so that they are the first evicted.
+     *
+     * @return true if all the file names of the database fit in the cache
+     */
+    private boolean warm(int cacheSize) throws DAOException {
+        Map<String, Integer> recent = jobDAO.getRecentInvocationIDs(cacheSize + 1);
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(recent.entrySet());
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            invocationIDs.put(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+        logger.info("Loaded {} invocation IDs.", invocationIDs.size());
+        return entries.size() <= cacheSize;
+    }
+
+    /**
+     * Gets the invocation ID of a job file, allocating a new one if no job
+     * with this file name was added before.
+     *
+     * @param fileName Job file name
+     * @return Invocation ID
+     * @throws GaswException
+     */
+    public int getInvocationID(String fileName) throws GaswException {
+        Integer invocationID = invocationIDs.get(fileName);
+        if (invocationID != null) {
+            return invocationID;
+        }
+        // the lookup and the allocation of a file name must not interleave,
+        // or two jobs of the same invocation would get different IDs
+        synchronized (locks[Math.floorMod(fileName.hashCode(), LOCK_STRIPES)]) {
+            invocationID = invocationIDs.get(fileName);
+            if (invocationID == null) {
+                // evictions are counted along with the removal: without any,
+                // a name missing from the complete cache was never seen
+                if (!warmedComplete || invocationIDs.getEvictions() > 0) {
+                    try {
+                        invocationID = jobDAO.getInvocationIDByFileName(fileName);
+                    } catch (DAOException ex) {
+                        throw new GaswException(ex);
+                    }
+                }
+                if (invocationID == null) {
+                    invocationID = nextID();
+                }
+                invocationIDs.put(fileName, invocationID);
+            }
+        }
+        return invocationID;
+    }
+
+    private synchronized int nextID() throws GaswException {
+        if (next == limit) {
+            try {
+                next = sequenceDAO.allocate(SEQUENCE_NAME, blockSize, minValue);
+                limit = next + blockSize;
+
+            } catch (DAOException ex) {
+                throw new GaswException(ex);
+            }
+        }
+        return next++;
+    }
+}
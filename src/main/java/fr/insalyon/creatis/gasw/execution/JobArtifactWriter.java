@@ -0,0 +1,158 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.GaswConfiguration;
+import fr.insalyon.creatis.gasw.GaswException;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes the files generated for each job (configurations, invocations,
+ * JDLs). Directories are created once and then remembered, and contents
+ * are written as UTF-8 bytes, optionally through a temporary file renamed
+ * in place so that readers never see a partial file.
+ */
+public class JobArtifactWriter {
+
+    private static JobArtifactWriter instance;
+    private final Set<Path> directories;
+    private final boolean atomic;
+    private final LongAdder writes;
+    private final LongAdder writeNanos;
+    private final AtomicLong maxWriteNanos;
+
+    public synchronized static JobArtifactWriter getInstance() throws GaswException {
+        if (instance == null) {
+            instance = new JobArtifactWriter(GaswConfiguration.getInstance().isSubmitAtomicWrites());
+        }
+        return instance;
+    }
+
+    private JobArtifactWriter(boolean atomic) {
+        this.directories = ConcurrentHashMap.newKeySet();
+        this.atomic = atomic;
+        this.writes = new LongAdder();
+        this.writeNanos = new LongAdder();
+        this.maxWriteNanos = new AtomicLong();
+
+        GaswMetrics.register("submit.artifacts.writes", writes::sum);
+        GaswMetrics.register("submit.artifacts.write.avg.micros", this::getAverageWriteMicros);
+        GaswMetrics.register("submit.artifacts.write.max.micros",
+                () -> TimeUnit.NANOSECONDS.toMicros(maxWriteNanos.get()));
+    }
+
+    /**
+     * Creates a directory if it was not already checked by this writer.
+     *
+     * @param dir Directory path
+     * @throws IOException
+     */
+    public void ensureDirectory(Path dir) throws IOException {
+        dir = dir.toAbsolutePath().normalize();
+        if (!directories.contains(dir)) {
+            Files.createDirectories(dir);
+            directories.add(dir);
+        }
+    }
+
+    /**
+     * Forgets that a directory was checked, so that the next call to
+     * ensureDirectory() creates it again. Used when a file could not be
+     * written because the directory was removed.
+     *
+     * @param dir Directory path
+     */
+    public void invalidate(Path dir) {
+        directories.remove(dir.toAbsolutePath().normalize());
+    }
+
+    public void write(Path file, String content) throws IOException {
+        write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void write(Path file, byte[] content) throws IOException {
+        long start = System.nanoTime();
+        Path dir = file.toAbsolutePath().normalize().getParent();
+        ensureDirectory(dir);
+
+        try {
+            doWrite(file, content);
+        } catch (NoSuchFileException ex) {
+            // the directory was removed since it was checked
+            invalidate(dir);
+            ensureDirectory(dir);
+            doWrite(file, content);
+        }
+        record(System.nanoTime() - start);
+    }
+
+    private void doWrite(Path file, byte[] content) throws IOException {
+        if (atomic) {
+            // not Files.createTempFile: it would create the file with mode
+            // 0600 instead of the default permissions of Files.write
+            Path tmp = file.resolveSibling(file.getFileName() + "."
+                    + Thread.currentThread().threadId() + ".tmp");
+            try {
+                Files.write(tmp, content);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } else {
+            Files.write(file, content);
+        }
+    }
+
+    private void record(long nanos) {
+        writes.increment();
+        writeNanos.add(nanos);
+        maxWriteNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private long getAverageWriteMicros() {
+        long count = writes.sum();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(writeNanos.sum() / count);
+    }
+}
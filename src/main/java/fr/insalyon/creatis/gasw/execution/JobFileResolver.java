@@ -0,0 +1,177 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.GaswConfiguration;
+import fr.insalyon.creatis.gasw.GaswConstants;
+import fr.insalyon.creatis.gasw.GaswException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+
+/**
+ * Resolves the location of the files of a job (script, configuration,
+ * invocation, standard output and error, provenance). By default they are
+ * stored directly under their root directory. With the sharded layout,
+ * they are stored two levels below it, in sub-directories derived from
+ * the hash of the job name, e.g. ./out/3f/a2/job-1.sh.out, so that no
+ * directory holds more than a fraction of the jobs.
+ *
+ * The job name is the file name of the job, without the .sh extension.
+ *
+ * The script and JDL names returned on submission are relative to their
+ * root directory and include the sub-directories, e.g. 3f/a2/job-1.sh.
+ * Executor plugins must resolve the other files of a job (configuration,
+ * invocation, outputs) through this class before the sharded layout is
+ * enabled, as they are no longer found directly under their root.
+ */
+public class JobFileResolver {
+
+    private static JobFileResolver instance;
+    private final boolean sharded;
+
+    public synchronized static JobFileResolver getInstance() throws GaswException {
+        if (instance == null) {
+            instance = new JobFileResolver(GaswConfiguration.getInstance().isLayoutSharded());
+        }
+        return instance;
+    }
+
+    JobFileResolver(boolean sharded) {
+        this.sharded = sharded;
+    }
+
+    public boolean isSharded() {
+        return sharded;
+    }
+
+    /**
+     * Gets the job name from a job identifier such as "job-1.sh" or a script
+     * name such as "3f/a2/job-1.sh". Only the directories and a trailing
+     * .sh extension are removed, so "job.1.sh" gives "job.1".
+     *
+     * @param jobId Job identifier
+     * @return Job name
+     */
+    public static String getJobName(String jobId) {
+        String name = jobId.substring(jobId.lastIndexOf('/') + 1);
+        return name.endsWith(".sh") ? name.substring(0, name.length() - 3) : name;
+    }
+
+    /**
+     * Gets the directory holding the files of a job under a root directory.
+     *
+     * @param root Root directory, e.g. GaswConstants.OUT_ROOT
+     * @param jobName Job name
+     * @return Directory path
+     */
+    public Path getDirectory(String root, String jobName) {
+        if (!sharded) {
+            return Paths.get(root);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(jobName.getBytes(StandardCharsets.UTF_8));
+        String hash = String.format("%08x", crc.getValue());
+
+        return Paths.get(root, hash.substring(0, 2), hash.substring(2, 4));
+    }
+
+    /**
+     * Resolves a file of a job under a root directory.
+     *
+     * @param root Root directory
+     * @param jobName Job name
+     * @param fileName File name
+     * @return File path
+     */
+    public Path resolve(String root, String jobName, String fileName) {
+        return getDirectory(root, jobName).resolve(fileName);
+    }
+
+    public Path getScriptFile(String jobName) {
+        return resolve(GaswConstants.SCRIPT_ROOT, jobName, jobName + ".sh");
+    }
+
+    public Path getJdlFile(String jobName) {
+        return resolve(GaswConstants.JDL_ROOT, jobName, jobName + ".jdl");
+    }
+
+    /**
+     * Gets the name of a file relative to its root directory, as handed
+     * over to executor plugins.
+     *
+     * @param root Root directory, e.g. GaswConstants.SCRIPT_ROOT
+     * @param file File path under that root
+     * @return Relative name, using / as separator
+     */
+    public static String getRelativeName(String root, Path file) {
+        Path relative = Paths.get(root).normalize().relativize(file.normalize());
+        StringBuilder name = new StringBuilder();
+        for (Path element : relative) {
+            if (name.length() > 0) {
+                name.append('/');
+            }
+            name.append(element);
+        }
+        return name.toString();
+    }
+
+    public Path getConfigurationFile(String jobName) {
+        return resolve(GaswConstants.CONFIG_DIR, jobName, jobName + "-configuration.sh");
+    }
+
+    public Path getInvocationFile(String jobName) {
+        return resolve(GaswConstants.INVOCATION_DIR, jobName, jobName + "-invocation.json");
+    }
+
+    public Path getInputsManifestFile(String jobName, boolean compressed) {
+        return resolve(GaswConstants.INVOCATION_DIR, jobName, getInputsManifestFileName(jobName, compressed));
+    }
+
+    public static String getInputsManifestFileName(String jobName, boolean compressed) {
+        return jobName + "-inputs.txt" + (compressed ? ".gz" : "");
+    }
+
+    /**
+     * Resolves a standard output, error or provenance file of a job.
+     *
+     * @param root Root directory, e.g. GaswConstants.ERR_ROOT
+     * @param jobName Job name
+     * @param extension File extension, e.g. GaswConstants.ERR_APP_EXT
+     * @return File path
+     */
+    public Path getStdFile(String root, String jobName, String extension) {
+        return resolve(root, jobName, jobName + ".sh" + extension);
+    }
+}
@@ -0,0 +1,370 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.GaswConfiguration;
+import fr.insalyon.creatis.gasw.GaswException;
+import fr.insalyon.creatis.gasw.GaswOutput;
+import fr.insalyon.creatis.gasw.bean.Job;
+import fr.insalyon.creatis.gasw.bean.JobMinorStatus;
+import fr.insalyon.creatis.gasw.plugin.ListenerPlugin;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers job events to the listener plugins.
+ *
+ * By default, listeners are called inline by the thread producing the
+ * event. When asynchronous delivery is enabled, each listener gets its own
+ * bounded queue and delivery thread, so a slow listener only delays its
+ * own events. Events are delivered to a listener in the order they were
+ * produced. When a queue is full, the configured backpressure applies:
+ * BLOCK waits for room, DROP discards the event, and COALESCE merges a
+ * status change into the last queued event when it is a pending status
+ * change of the same job, and otherwise waits for room. Only the last
+ * event is merged, so that the order of events is kept.
+ */
+public class ListenerDispatcher {
+
+    public enum Backpressure {
+
+        BLOCK, DROP, COALESCE
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ListenerDispatcher.class);
+    private static ListenerDispatcher instance;
+    private final List<ListenerPlugin> listeners;
+    private final List<ListenerQueue> queues;
+
+    public synchronized static ListenerDispatcher getInstance() throws GaswException {
+        if (instance == null) {
+            instance = new ListenerDispatcher();
+        }
+        return instance;
+    }
+
+    private ListenerDispatcher() throws GaswException {
+        GaswConfiguration conf = GaswConfiguration.getInstance();
+        listeners = conf.getListenerPlugins();
+        queues = new ArrayList<>();
+
+        if (conf.isListenerAsync()) {
+            Backpressure backpressure = getBackpressure(conf.getListenerBackpressure());
+            logger.info("Starting asynchronous listener queues ({} events, {}).",
+                    conf.getListenerQueueSize(), backpressure);
+            for (ListenerPlugin listener : listeners) {
+                queues.add(new ListenerQueue(listener, Math.max(1, conf.getListenerQueueSize()),
+                        backpressure, conf.isListenerVirtualThreads()));
+            }
+        }
+    }
+
+    public void jobSubmitted(Job job) throws GaswException {
+        if (queues.isEmpty()) {
+            for (ListenerPlugin listener : listeners) {
+                listener.jobSubmitted(job);
+            }
+        } else {
+            Job snapshot = new Job(job);
+            enqueue(new Event(listener -> listener.jobSubmitted(snapshot)));
+        }
+    }
+
+    public void jobStatusChanged(Job job) throws GaswException {
+        if (queues.isEmpty()) {
+            for (ListenerPlugin listener : listeners) {
+                listener.jobStatusChanged(job);
+            }
+        } else {
+            Job snapshot = new Job(job);
+            for (ListenerQueue queue : queues) {
+                queue.statusChanged(snapshot);
+            }
+        }
+    }
+
+    /**
+     * Notifies listeners that a job finished. Errors raised by a listener
+     * are logged and do not prevent other listeners from being notified.
+     */
+    public void jobFinished(GaswOutput gaswOutput) {
+        if (queues.isEmpty()) {
+            for (ListenerPlugin listener : listeners) {
+                try {
+                    listener.jobFinished(gaswOutput);
+                } catch (Exception ex) {
+                    logger.warn("Error ", ex);
+                }
+            }
+        } else {
+            enqueue(new Event(listener -> listener.jobFinished(gaswOutput)));
+        }
+    }
+
+    public void jobMinorStatusReported(JobMinorStatus jobMinorStatus) throws GaswException {
+        if (queues.isEmpty()) {
+            for (ListenerPlugin listener : listeners) {
+                listener.jobMinorStatusReported(jobMinorStatus);
+            }
+        } else {
+            enqueue(new Event(listener -> listener.jobMinorStatusReported(jobMinorStatus)));
+        }
+    }
+
+    /**
+     * Stops the delivery threads. Pending events are delivered first,
+     * unless force is set.
+     *
+     * @param force Whether pending events are discarded
+     */
+    public synchronized static void terminate(boolean force) {
+        if (instance != null) {
+            for (ListenerQueue queue : instance.queues) {
+                queue.stop(force);
+            }
+            for (ListenerQueue queue : instance.queues) {
+                queue.await();
+            }
+            instance = null;
+        }
+    }
+
+    private void enqueue(Event event) {
+        for (ListenerQueue queue : queues) {
+            queue.offer(event);
+        }
+    }
+
+    private Backpressure getBackpressure(String value) {
+        try {
+            return Backpressure.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Unknown listener backpressure \"{}\", using {}.", value, Backpressure.BLOCK);
+            return Backpressure.BLOCK;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Delivery {
+
+        void deliver(ListenerPlugin listener) throws GaswException;
+    }
+
+    private static class Event {
+
+        private final Delivery delivery;
+        private final long created = System.nanoTime();
+
+        Event(Delivery delivery) {
+            this.delivery = delivery;
+        }
+
+        void deliver(ListenerPlugin listener) throws GaswException {
+            delivery.deliver(listener);
+        }
+    }
+
+    /**
+     * Status change still waiting at the end of a queue, which can absorb
+     * later status changes of the same job until it is taken for delivery.
+     */
+    private static class StatusEvent extends Event {
+
+        private final String jobID;
+        private Job job;
+        private boolean taken;
+
+        StatusEvent(Job job) {
+            super(null);
+            this.jobID = job.getId();
+            this.job = job;
+        }
+
+        synchronized boolean replace(Job job) {
+            if (taken) {
+                return false;
+            }
+            this.job = job;
+            return true;
+        }
+
+        @Override
+        void deliver(ListenerPlugin listener) throws GaswException {
+            Job current;
+            synchronized (this) {
+                taken = true;
+                current = job;
+            }
+            listener.jobStatusChanged(current);
+        }
+    }
+
+    private static class ListenerQueue implements Runnable {
+
+        private static final Event STOP = new Event(listener -> {
+        });
+        private final ListenerPlugin listener;
+        private final String name;
+        private final BlockingQueue<Event> queue;
+        private final Backpressure backpressure;
+        private final ReentrantLock tailLock = new ReentrantLock();
+        private StatusEvent tail;
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+        private final Thread thread;
+        private volatile long lagMillis;
+
+        ListenerQueue(ListenerPlugin listener, int size, Backpressure backpressure, boolean virtual) {
+            this.listener = listener;
+            this.name = listener.getPluginName();
+            this.queue = new ArrayBlockingQueue<>(size);
+            this.backpressure = backpressure;
+
+            String prefix = "listener." + name;
+            GaswMetrics.register(prefix + ".depth", queue::size);
+            GaswMetrics.register(prefix + ".lag.millis", () -> lagMillis);
+            GaswMetrics.register(prefix + ".dropped", dropped::get);
+            GaswMetrics.register(prefix + ".coalesced", coalesced::get);
+
+            Thread.Builder builder = virtual ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+            thread = builder.name("gasw-listener-" + name).start(this);
+        }
+
+        void statusChanged(Job job) {
+            if (backpressure == Backpressure.COALESCE) {
+                tailLock.lock();
+                try {
+                    if (tail != null && tail.jobID.equals(job.getId()) && tail.replace(job)) {
+                        coalesced.incrementAndGet();
+                        return;
+                    }
+                    offer(new StatusEvent(job));
+                } finally {
+                    tailLock.unlock();
+                }
+            } else {
+                offer(new Event(listener -> listener.jobStatusChanged(job)));
+            }
+        }
+
+        void offer(Event event) {
+            if (backpressure == Backpressure.COALESCE) {
+                // a lock rather than a monitor, as producers may block here
+                // on virtual threads
+                tailLock.lock();
+                try {
+                    tail = put(event) && event instanceof StatusEvent statusEvent ? statusEvent : null;
+                } finally {
+                    tailLock.unlock();
+                }
+                return;
+            }
+            if (backpressure == Backpressure.DROP) {
+                if (!queue.offer(event)) {
+                    dropped.incrementAndGet();
+                    logger.warn("Listener {} queue full, dropping event.", name);
+                }
+                return;
+            }
+            put(event);
+        }
+
+        private boolean put(Event event) {
+            try {
+                queue.put(event);
+                return true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                dropped.incrementAndGet();
+                logger.warn("Interrupted while queuing event for listener {}.", name);
+                return false;
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Event event;
+                try {
+                    event = queue.take();
+                } catch (InterruptedException ex) {
+                    break;
+                }
+                if (event == STOP) {
+                    break;
+                }
+                try {
+                    event.deliver(listener);
+                } catch (Exception ex) {
+                    logger.warn("Error delivering event to listener " + name, ex);
+                }
+                lagMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - event.created);
+            }
+        }
+
+        void stop(boolean force) {
+            if (force) {
+                queue.clear();
+                thread.interrupt();
+            } else {
+                try {
+                    queue.put(STOP);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    thread.interrupt();
+                }
+            }
+        }
+
+        void await() {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            String prefix = "listener." + name;
+            GaswMetrics.unregister(prefix + ".depth");
+            GaswMetrics.unregister(prefix + ".lag.millis");
+            GaswMetrics.unregister(prefix + ".dropped");
+            GaswMetrics.unregister(prefix + ".coalesced");
+        }
+    }
+}
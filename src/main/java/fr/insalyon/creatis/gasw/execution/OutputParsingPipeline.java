@@ -0,0 +1,206 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.GaswConfiguration;
+import fr.insalyon.creatis.gasw.GaswException;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared pipeline parsing the outputs of finished jobs. At most
+ * "concurrency" parsers run at the same time and at most "queue size"
+ * parsers wait for a slot: beyond that, submitters (i.e. executor monitors)
+ * are blocked until a parse completes.
+ */
+public class OutputParsingPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutputParsingPipeline.class);
+    private static final String PREFIX = "parser.pipeline";
+    private static OutputParsingPipeline instance;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger blocked = new AtomicInteger();
+    private final LongAdder parsed = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public synchronized static OutputParsingPipeline getInstance() throws GaswException {
+        if (instance == null) {
+            GaswConfiguration conf = GaswConfiguration.getInstance();
+            instance = new OutputParsingPipeline(conf.getParserPipelineConcurrency(),
+                    conf.getParserPipelineQueueSize(), conf.isParserPipelineVirtualThreads());
+        }
+        return instance;
+    }
+
+    /**
+     * Tells whether output parsers should run on the pipeline.
+     *
+     * @return true if the pipeline is enabled
+     * @throws GaswException
+     */
+    public static boolean isEnabled() throws GaswException {
+        return GaswConfiguration.getInstance().isParserPipelineEnabled();
+    }
+
+    private OutputParsingPipeline(int concurrency, int queueSize, boolean virtualThreads) {
+        concurrency = Math.max(1, concurrency);
+        queueSize = Math.max(0, queueSize);
+
+        ThreadFactory factory;
+        if (virtualThreads) {
+            factory = Thread.ofVirtual().name("gasw-parser-", 1).factory();
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            factory = r -> {
+                Thread thread = new Thread(r, "gasw-parser-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        slots = new Semaphore(concurrency + queueSize, true);
+
+        GaswMetrics.register(PREFIX + ".queue.depth", () -> executor.getQueue().size());
+        GaswMetrics.register(PREFIX + ".running", running::get);
+        GaswMetrics.register(PREFIX + ".parsed", parsed::sum);
+        GaswMetrics.register(PREFIX + ".latency.avg.millis", () -> average(totalNanos));
+        GaswMetrics.register(PREFIX + ".latency.max.millis",
+                () -> TimeUnit.NANOSECONDS.toMillis(maxNanos.get()));
+        GaswMetrics.register(PREFIX + ".wait.avg.millis", () -> average(totalWaitNanos));
+        GaswMetrics.register(PREFIX + ".submitters.blocked", blocked::get);
+
+        logger.info("Started output parsing pipeline: {} concurrent parses, {} queued{}.",
+                concurrency, queueSize, virtualThreads ? " (virtual threads)" : "");
+    }
+
+    /**
+     * Queues a parser, blocking while the pipeline is full. The number of
+     * blocked submitters is published, as they are the executor monitors.
+     *
+     * @param parser Parser of a finished job
+     * @throws GaswException if interrupted while waiting or if the pipeline
+     * is terminated
+     */
+    public void submit(GaswOutputParser parser) throws GaswException {
+        if (!slots.tryAcquire()) {
+            blocked.incrementAndGet();
+            try {
+                slots.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new GaswException(ex);
+            } finally {
+                blocked.decrementAndGet();
+            }
+        }
+        long queued = System.nanoTime();
+        try {
+            executor.execute(() -> run(parser, queued));
+        } catch (RejectedExecutionException ex) {
+            slots.release();
+            throw new GaswException("Output parsing pipeline is terminated", ex);
+        }
+    }
+
+    private void run(GaswOutputParser parser, long queued) {
+        long start = System.nanoTime();
+        totalWaitNanos.add(start - queued);
+        running.incrementAndGet();
+        try {
+            parser.run();
+        } catch (RuntimeException ex) {
+            logger.error("Error parsing output", ex);
+        } finally {
+            long duration = System.nanoTime() - start;
+            running.decrementAndGet();
+            parsed.increment();
+            totalNanos.add(duration);
+            maxNanos.accumulateAndGet(duration, Math::max);
+            slots.release();
+        }
+    }
+
+    private long average(LongAdder nanos) {
+        long count = parsed.sum();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(nanos.sum() / count);
+    }
+
+    /**
+     * Stops the pipeline. Unless force is set, queued and running parsers
+     * are given the runtime drain timeout to complete.
+     *
+     * @param force Whether running parsers are interrupted right away
+     */
+    public synchronized static void terminate(boolean force) {
+        if (instance != null) {
+            ThreadPoolExecutor executor = instance.executor;
+            executor.shutdown();
+            try {
+                long timeout = force ? 0 : GaswConfiguration.getInstance().getRuntimeDrainTimeout();
+                if (!executor.awaitTermination(timeout, TimeUnit.SECONDS)) {
+                    logger.warn("Interrupting output parsing: {} running, {} queued.",
+                            instance.running.get(), executor.getQueue().size());
+                    executor.shutdownNow();
+                }
+            } catch (GaswException ex) {
+                executor.shutdownNow();
+            } catch (InterruptedException ex) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            GaswMetrics.unregister(PREFIX + ".queue.depth");
+            GaswMetrics.unregister(PREFIX + ".running");
+            GaswMetrics.unregister(PREFIX + ".parsed");
+            GaswMetrics.unregister(PREFIX + ".latency.avg.millis");
+            GaswMetrics.unregister(PREFIX + ".latency.max.millis");
+            GaswMetrics.unregister(PREFIX + ".wait.avg.millis");
+            GaswMetrics.unregister(PREFIX + ".submitters.blocked");
+            instance = null;
+        }
+    }
+}
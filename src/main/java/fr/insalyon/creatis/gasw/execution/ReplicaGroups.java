@@ -0,0 +1,144 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.GaswConfiguration;
+import fr.insalyon.creatis.gasw.GaswException;
+import fr.insalyon.creatis.gasw.bean.Job;
+import fr.insalyon.creatis.gasw.dao.DAOException;
+import fr.insalyon.creatis.gasw.dao.DAOFactory;
+import fr.insalyon.creatis.gasw.execution.SignalDispatcher.Action;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Groups the replicas of an invocation (jobs sharing an invocation ID) so
+ * that, as soon as one of them completes, the monitor of its executor is
+ * asked to kill the others, without waiting for the next sweep of
+ * signaled jobs. Monitors register themselves when they add a job.
+ *
+ * Disabled by default (replica.immediate.kill). Only invocations with more
+ * than one job added in this process and not ended yet are looked up, and
+ * replicas already signaled (e.g. by the monitor's own killReplicas) are
+ * not signaled again. An invocation is forgotten when its first job
+ * completes or its last job ends otherwise.
+ */
+public class ReplicaGroups {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaGroups.class);
+    private static ReplicaGroups instance;
+    private final Map<String, GaswMonitor> monitors;
+    private final Map<Integer, Integer> invocationSizes;
+    private final boolean enabled;
+
+    public synchronized static ReplicaGroups getInstance() throws GaswException {
+        if (instance == null) {
+            instance = new ReplicaGroups(GaswConfiguration.getInstance().isReplicaImmediateKill());
+        }
+        return instance;
+    }
+
+    private ReplicaGroups(boolean enabled) {
+        this.monitors = new ConcurrentHashMap<>();
+        this.invocationSizes = new ConcurrentHashMap<>();
+        this.enabled = enabled;
+    }
+
+    /**
+     * Registers a job added by a monitor.
+     *
+     * @param job Added job
+     * @param monitor Monitor of the job executor
+     */
+    public void added(Job job, GaswMonitor monitor) {
+        if (!enabled) {
+            return;
+        }
+        if (job.getExecutor() != null) {
+            monitors.putIfAbsent(job.getExecutor(), monitor);
+        }
+        invocationSizes.merge(job.getInvocationID(), 1, Integer::sum);
+    }
+
+    /**
+     * Handles the completion of a job: if other replicas of its invocation
+     * are still active, killReplicas is dispatched right away to the
+     * monitor of its executor.
+     *
+     * @param job Completed job
+     */
+    public void completed(Job job) {
+        if (!enabled) {
+            return;
+        }
+        // the first completion of an invocation handles its replicas
+        Integer size = invocationSizes.remove(job.getInvocationID());
+        GaswMonitor monitor = job.getExecutor() == null ? null : monitors.get(job.getExecutor());
+        if (size == null || size < 2 || monitor == null) {
+            return;
+        }
+        try {
+            long siblings = DAOFactory.getDAOFactory().getJobDAO()
+                    .getActiveJobsByInvocationID(job.getInvocationID()).stream()
+                    .filter(sibling -> !sibling.getId().equals(job.getId())
+                            && sibling.getStatus() != GaswStatus.KILL)
+                    .count();
+
+            if (siblings > 0) {
+                logger.info("Job [{}] completed, killing {} replicas.", job.getId(), siblings);
+                SignalDispatcher.getInstance().dispatch(Action.KILL_REPLICAS, List.of(job),
+                        jobs -> jobs.forEach(monitor::killReplicas));
+            }
+        } catch (DAOException | GaswException ex) {
+            logger.error("Error killing replicas of job {}", job.getId(), ex);
+        }
+    }
+
+    /**
+     * Handles a job that ended without completing (failed and resubmitted
+     * or held, cancelled or killed): it no longer counts among the
+     * replicas of its invocation.
+     *
+     * @param job Ended job
+     */
+    public void ended(Job job) {
+        if (!enabled) {
+            return;
+        }
+        invocationSizes.computeIfPresent(job.getInvocationID(),
+                (invocationID, size) -> size > 1 ? size - 1 : null);
+    }
+}
@@ -0,0 +1,237 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.GaswConfiguration;
+import fr.insalyon.creatis.gasw.GaswException;
+import fr.insalyon.creatis.gasw.bean.Job;
+import fr.insalyon.creatis.gasw.util.GaswMetrics;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the actions signaled on jobs (kill, replicate, reschedule, resume)
+ * on a bounded pool, so that mass actions do not hold the monitor threads.
+ * Jobs are handed to the monitors in batches, each action running at most
+ * a configured number of batches at a time (one by default). A job is not
+ * dispatched again for an action while a previous dispatch of this action
+ * is running.
+ *
+ * Monitor hooks (kill, replicate...) are therefore called from the pool
+ * threads rather than from the monitor thread, and hooks of different
+ * actions may run at the same time. Raising signal.action.concurrency also
+ * runs several batches of the same hook at once, which requires monitors
+ * whose hooks are thread-safe.
+ */
+public class SignalDispatcher {
+
+    public enum Action {
+
+        KILL, KILL_REPLICAS, REPLICATE, RESCHEDULE, RESUME
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalDispatcher.class);
+    private static SignalDispatcher instance;
+    private final ExecutorService executor;
+    private final Map<Action, Lane> lanes;
+    private final Set<String> inFlight;
+    private final int batchSize;
+
+    public synchronized static SignalDispatcher getInstance() throws GaswException {
+        if (instance == null) {
+            instance = new SignalDispatcher();
+        }
+        return instance;
+    }
+
+    private SignalDispatcher() throws GaswException {
+        GaswConfiguration conf = GaswConfiguration.getInstance();
+        int size = Math.max(1, conf.getSignalPoolSize());
+        int concurrency = Math.max(1, conf.getSignalActionConcurrency());
+        AtomicInteger count = new AtomicInteger();
+
+        logger.info("Starting signal dispatcher with {} threads.", size);
+        executor = Executors.newFixedThreadPool(size, r -> {
+            Thread thread = new Thread(r, "gasw-signal-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        lanes = new EnumMap<>(Action.class);
+        for (Action action : Action.values()) {
+            lanes.put(action, new Lane(concurrency));
+        }
+        inFlight = ConcurrentHashMap.newKeySet();
+        batchSize = Math.max(1, conf.getSignalBatchSize());
+
+        GaswMetrics.register("signal.inflight", inFlight::size);
+    }
+
+    /**
+     * Dispatches an action on jobs. Jobs for which the same action is
+     * still running are skipped.
+     *
+     * @param action Signaled action
+     * @param jobs Signaled jobs
+     * @param handler Monitor hook performing the action on a batch of jobs
+     */
+    public void dispatch(Action action, List<Job> jobs, Consumer<List<Job>> handler) {
+        List<Job> batch = new ArrayList<>(Math.min(jobs.size(), batchSize));
+        for (Job job : jobs) {
+            if (inFlight.add(getKey(action, job))) {
+                batch.add(job);
+                if (batch.size() == batchSize) {
+                    submit(action, batch, handler);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(action, batch, handler);
+        }
+    }
+
+    public synchronized static void terminate() {
+        if (instance != null) {
+            instance.executor.shutdown();
+            GaswMetrics.unregister("signal.inflight");
+            instance = null;
+        }
+    }
+
+    private void submit(Action action, List<Job> batch, Consumer<List<Job>> handler) {
+        lanes.get(action).submit(new Batch(action, batch, handler));
+    }
+
+    private String getKey(Action action, Job job) {
+        return action.name() + ":" + job.getId();
+    }
+
+    /**
+     * Batch of jobs on which an action is performed.
+     */
+    private class Batch {
+
+        private final Action action;
+        private final List<Job> jobs;
+        private final Consumer<List<Job>> handler;
+
+        Batch(Action action, List<Job> jobs, Consumer<List<Job>> handler) {
+            this.action = action;
+            this.jobs = jobs;
+            this.handler = handler;
+        }
+
+        void run() {
+            try {
+                handler.accept(jobs);
+            } catch (RuntimeException ex) {
+                logger.error("Error while handling " + action + " on " + jobs.size() + " jobs", ex);
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Allows the jobs of this batch to be dispatched again.
+         */
+        void release() {
+            for (Job job : jobs) {
+                inFlight.remove(getKey(action, job));
+            }
+        }
+    }
+
+    /**
+     * Queue of the batches of an action, drained by at most a given number
+     * of pool threads.
+     */
+    private class Lane {
+
+        private final Queue<Batch> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger workers = new AtomicInteger();
+        private final int limit;
+
+        Lane(int limit) {
+            this.limit = limit;
+        }
+
+        void submit(Batch task) {
+            tasks.add(task);
+            startWorker();
+        }
+
+        private void startWorker() {
+            int current;
+            while (!tasks.isEmpty() && (current = workers.get()) < limit) {
+                if (workers.compareAndSet(current, current + 1)) {
+                    try {
+                        executor.execute(this::drain);
+                    } catch (RejectedExecutionException ex) {
+                        workers.decrementAndGet();
+                        logger.warn("Signal dispatcher terminated, dropping " + tasks.size() + " batches");
+                        Batch task;
+                        while ((task = tasks.poll()) != null) {
+                            task.release();
+                        }
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Batch task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+            } finally {
+                workers.decrementAndGet();
+                startWorker();
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.bean.Job;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass scanner of a job standard error, routing each line to the
+ * buffer of the section it belongs to. Section tags are looked for only in
+ * lines containing a '&lt;'.
+ */
+class StdErrScanner {
+
+    private final Job job;
+    private final Writer appStdErr;
+    private final Appendable appStdErrBuf;
+    private final StringBuilder inputsDownloadErrBuf;
+    private final StringBuilder resultsUploadErrBuf;
+    private int exitCode;
+    private boolean exitCodeFound;
+    private boolean isAppExec;
+    private boolean isInputsDownload;
+    private boolean isResultsUpload;
+    private boolean isUploadTest;
+
+    /**
+     * @param job Job updated with the exit code found, or null
+     * @param appStdErr Writer receiving the application error
+     * @param appStdErrBuf Buffer receiving the application error
+     * @param inputsDownloadErrBuf Buffer receiving the inputs download error
+     * @param resultsUploadErrBuf Buffer receiving the results upload and
+     * upload test error
+     * @param exitCode Exit code returned if none is found
+     */
+    StdErrScanner(Job job, Writer appStdErr, Appendable appStdErrBuf,
+            StringBuilder inputsDownloadErrBuf, StringBuilder resultsUploadErrBuf, int exitCode) {
+        this.job = job;
+        this.appStdErr = appStdErr;
+        this.appStdErrBuf = appStdErrBuf;
+        this.inputsDownloadErrBuf = inputsDownloadErrBuf;
+        this.resultsUploadErrBuf = resultsUploadErrBuf;
+        this.exitCode = exitCode;
+    }
+
+    /**
+     * Scans the error output. As with a Scanner iterated with hasNext(),
+     * the blank lines ending the output are ignored.
+     *
+     * @param reader Standard error
+     * @throws IOException
+     */
+    void scan(BufferedReader reader) throws IOException {
+        List<String> blankLines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (isBlank(line)) {
+                blankLines.add(line);
+                continue;
+            }
+            for (String blankLine : blankLines) {
+                parseLine(blankLine);
+            }
+            blankLines.clear();
+            parseLine(line);
+        }
+    }
+
+    private void parseLine(String line) throws IOException {
+        boolean tagged = line.indexOf('<') >= 0;
+
+        // Application Error
+        if (tagged && line.contains("<application_execution>")) {
+            isAppExec = true;
+
+        } else if (tagged && line.contains("</application_execution>")) {
+            isAppExec = false;
+
+        } else if (tagged && line.contains("<inputs_download>")) {
+            isInputsDownload = true;
+
+        } else if (tagged && line.contains("</inputs_download>")) {
+            isInputsDownload = false;
+
+        } else if (tagged && line.contains("<results_upload>")) {
+            isResultsUpload = true;
+
+        } else if (tagged && line.contains("</results_upload>")) {
+            isResultsUpload = false;
+
+        } else if (tagged && line.contains("<upload_test>")) {
+            isUploadTest = true;
+
+        } else if (tagged && line.contains("</upload_test>")) {
+            isUploadTest = false;
+
+        } else if (isAppExec) {
+            appStdErr.write(line);
+            appStdErr.write('\n');
+            appStdErrBuf.append(line).append('\n');
+
+        } else if (isInputsDownload) {
+            inputsDownloadErrBuf.append(line).append('\n');
+
+        } else if (isResultsUpload || isUploadTest) {
+            resultsUploadErrBuf.append(line).append('\n');
+        }
+
+        if (line.contains("Exiting with return value")) {
+            String[] errmsg = line.split("\\s+");
+            exitCode = Integer.parseInt(errmsg[errmsg.length - 1]);
+            exitCodeFound = true;
+            if (job != null) {
+                job.setExitCode(exitCode);
+            }
+        }
+    }
+
+    private static boolean isBlank(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (!Character.isWhitespace(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Exit code found in the error output, or the initial one
+     */
+    int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * @return true if the error output contains an exit code
+     */
+    boolean isExitCodeFound() {
+        return exitCodeFound;
+    }
+}
@@ -0,0 +1,329 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.GaswUtil;
+import fr.insalyon.creatis.gasw.bean.Data;
+import fr.insalyon.creatis.gasw.bean.Job;
+import fr.insalyon.creatis.gasw.bean.Node;
+import fr.insalyon.creatis.gasw.bean.NodeID;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single-pass scanner of a job standard output. Lines are read once and
+ * dispatched on their first character to the few prefixes carrying data;
+ * only those lines are split. The markers that may appear anywhere in a
+ * line (section tags, timings, exit code) are looked for only when a cheap
+ * pre-check matches.
+ */
+class StdOutScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(GaswOutputParser.class);
+    private final Job job;
+    private final Writer appStdOut;
+    private final Appendable appStdOutBuf;
+    private final List<Data> dataList;
+    private final Node node;
+    private final NodeID nodeID;
+    private Map<String, URI> uploadedResults;
+    private int exitCode;
+    private boolean isAppExec;
+    private boolean isInputDownload;
+    private boolean isResultUpload;
+    private boolean isAfterExec;
+    private String lfcHost;
+
+    /**
+     * @param job Job updated with the timings and exit code found
+     * @param appStdOut Writer receiving the application output
+     * @param appStdOutBuf Buffer receiving the application output
+     * @param dataList List receiving the inputs and outputs found
+     */
+    StdOutScanner(Job job, Writer appStdOut, Appendable appStdOutBuf, List<Data> dataList) {
+        this.job = job;
+        this.appStdOut = appStdOut;
+        this.appStdOutBuf = appStdOutBuf;
+        this.dataList = dataList;
+        this.node = new Node();
+        this.nodeID = new NodeID();
+        this.exitCode = -1;
+        this.lfcHost = "";
+    }
+
+    /**
+     * Scans the output. On error, what was found until then is kept.
+     *
+     * @param reader Standard output
+     * @throws IOException
+     * @throws URISyntaxException
+     */
+    void scan(BufferedReader reader) throws IOException, URISyntaxException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            boolean tagged = line.indexOf('<') >= 0;
+
+            // Application Output
+            if (tagged && line.contains("<application_execution>")) {
+                isAppExec = true;
+            } else if (tagged && line.contains("</application_execution>")) {
+                isAppExec = false;
+                isAfterExec = true;
+            } else if (isAppExec) {
+                appStdOut.write(line);
+                appStdOut.write('\n');
+                appStdOutBuf.append(line).append('\n');
+            }
+
+            // General Output
+            if (!parseTiming(line)) {
+                parsePrefixed(line, reader);
+            }
+        }
+    }
+
+    /**
+     * Parses the timing and exit code lines, which are prefixed by the
+     * log header.
+     *
+     * @return true if the line was consumed
+     */
+    private boolean parseTiming(String line) {
+        if (line.indexOf(" time:") >= 0) {
+            if (line.contains("Input download time:")) {
+                job.setRunning(addDate(job.getDownload(), getSecondToLast(line)));
+                return true;
+
+            } else if (line.contains("Execution time:")) {
+                if (job.getRunning() == null) {
+                    job.setRunning(job.getDownload());
+                }
+                job.setUpload(addDate(job.getRunning(), getSecondToLast(line)));
+                return true;
+
+            } else if (line.contains("Results upload time:")) {
+                job.setEnd(addDate(job.getUpload(), getSecondToLast(line)));
+                return true;
+            }
+        }
+        if (isAfterExec && line.contains("Exiting with return value")) {
+            String[] errmsg = line.split("\\s+");
+            exitCode = Integer.parseInt(errmsg[errmsg.length - 1]);
+            job.setExitCode(exitCode);
+            return true;
+        }
+        return false;
+    }
+
+    private void parsePrefixed(String line, BufferedReader reader)
+            throws IOException, URISyntaxException {
+
+        if (line.isEmpty()) {
+            return;
+        }
+        switch (line.charAt(0)) {
+            case '=':
+                if (line.startsWith("===== uname =====")) {
+                    line = reader.readLine();
+                    nodeID.setNodeName(line.split(" ")[1]);
+                }
+                break;
+
+            case 'S':
+                if (line.startsWith("SITE_NAME")) {
+                    nodeID.setSiteName(line.split("=")[1]);
+                }
+                break;
+
+            case 'P':
+                if (line.startsWith("PBS_O_HOST") && nodeID.getSiteName() == null) {
+                    nodeID.setSiteName(line.split("=")[1]);
+                    String code = nodeID.getNodeName().substring(nodeID.getNodeName().lastIndexOf(".") + 1);
+                    if (code.length() != 2) {
+                        String host = line.split("=")[1];
+                        String countryCode = host.substring(host.lastIndexOf("."));
+                        nodeID.setNodeName(nodeID.getNodeName() + countryCode);
+                    }
+                }
+                break;
+
+            case 'C':
+                if (line.startsWith("CE_ID")) {
+                    String code = nodeID.getNodeName().substring(nodeID.getNodeName().lastIndexOf(".") + 1);
+                    if (code.length() != 2) {
+                        String host = URI.create("http://" + line.split("=")[1]).getHost();
+                        String countryCode = host.substring(host.lastIndexOf("."));
+                        nodeID.setNodeName(nodeID.getNodeName() + countryCode);
+                    }
+                }
+                break;
+
+            case 'p':
+                if (line.startsWith("processor")) {
+                    node.setnCpus(Integer.parseInt(getValue(line)) + 1);
+                }
+                break;
+
+            case 'm':
+                if (line.startsWith("model name")) {
+                    node.setCpuModelName(getValue(line));
+                }
+                break;
+
+            case 'c':
+                if (line.startsWith("cpu MHz")) {
+                    node.setCpuMhz(Double.parseDouble(getValue(line)));
+                } else if (line.startsWith("cache size")) {
+                    node.setCpuCacheSize(Integer.parseInt(getValue(line).split(" ")[0]));
+                }
+                break;
+
+            case 'b':
+                if (line.startsWith("bogomips")) {
+                    node.setCpuBogoMips(Double.parseDouble(getValue(line)));
+                }
+                break;
+
+            case 'M':
+                if (line.startsWith("MemTotal:")) {
+                    node.setMemTotal(Integer.parseInt(line.split("\\s+")[1]));
+                }
+                break;
+
+            case 'L':
+                if (line.startsWith("LFC_HOST")) {
+                    lfcHost = line.substring(line.indexOf("=") + 1);
+                }
+                break;
+
+            case '<':
+                parseTag(line);
+                break;
+
+            default:
+        }
+    }
+
+    private void parseTag(String line) throws URISyntaxException {
+        if (line.startsWith("<inputs_download>")) {
+            isInputDownload = true;
+
+        } else if (line.startsWith("</inputs_download>")) {
+            isInputDownload = false;
+
+        } else if (line.startsWith("<file_download") && isInputDownload) {
+            String downloadedFile = line.substring(line.indexOf("=") + 1, line.length() - 1);
+            dataList.add(new Data(downloadedFile, Data.Type.Input));
+            logger.info("Adding input {} for job {}", downloadedFile, job.getId());
+
+        } else if (line.startsWith("<results_upload>")) {
+            isResultUpload = true;
+            uploadedResults = new HashMap<String, URI>();
+
+        } else if (line.startsWith("</results_upload>")) {
+            isResultUpload = false;
+
+        } else if (line.startsWith("<file_upload") && isResultUpload) {
+            int uriStartIndex = line.lastIndexOf("uri=");
+            // the output is like this <file upload id= uri= >
+            String outputId = line.substring(line.indexOf("id=") + 3, uriStartIndex - 1);
+            String uploadedFile = line.substring(uriStartIndex + 4, line.length() - 1);
+            URI uri;
+            if (GaswUtil.isUri(uploadedFile)) {
+                uri = new URI(uploadedFile);
+            } else {
+                uri = lfcHost.isEmpty()
+                    ? new URI("file://" + uploadedFile)
+                    : new URI("lfn://" + lfcHost + uploadedFile);
+            }
+            uploadedResults.put(outputId, uri);
+            dataList.add(new Data(uri.toString(), Data.Type.Output));
+            logger.info("Adding output {} {} for job {}" + outputId, uri, job.getId());
+        }
+    }
+
+    /**
+     * @return Value of a "key : value" line, as split(":")[1].trim()
+     */
+    private static String getValue(String line) {
+        return line.split(":")[1].trim();
+    }
+
+    /**
+     * @return Number of seconds of a "... time: N seconds" line
+     */
+    private static int getSecondToLast(String line) {
+        String[] lineSplitted = line.split(" ");
+        return Integer.parseInt(lineSplitted[lineSplitted.length - 2]);
+    }
+
+    private static Date addDate(Date dateToBeAdded, int seconds) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(dateToBeAdded);
+        calendar.add(Calendar.SECOND, seconds);
+        return calendar.getTime();
+    }
+
+    /**
+     * @return Exit code found in the output, or -1
+     */
+    int getExitCode() {
+        return exitCode;
+    }
+
+    Node getNode() {
+        return node;
+    }
+
+    NodeID getNodeID() {
+        return nodeID;
+    }
+
+    /**
+     * @return Uploaded results, or null if the output has no results upload
+     * section
+     */
+    Map<String, URI> getUploadedResults() {
+        return uploadedResults;
+    }
+}
@@ -0,0 +1,147 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.GaswConfiguration;
+import fr.insalyon.creatis.gasw.GaswException;
+import fr.insalyon.creatis.gasw.GaswInput;
+import fr.insalyon.creatis.gasw.plugin.SubmissionExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared pools used to generate job artifacts in parallel and to run the
+ * default asynchronous submissions of executor plugins, on platform threads
+ * so that a submission holding the plugin monitor never pins a carrier
+ * thread.
+ */
+public class SubmissionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionPool.class);
+    private static SubmissionPool instance;
+    private ExecutorService executor;
+    private ExecutorService submitter;
+
+    public synchronized static SubmissionPool getInstance() throws GaswException {
+        if (instance == null) {
+            instance = new SubmissionPool();
+        }
+        return instance;
+    }
+
+    private SubmissionPool() throws GaswException {
+        GaswConfiguration conf = GaswConfiguration.getInstance();
+        int size = conf.getSubmitPoolSize();
+
+        if (conf.isSubmitPrepareVirtualThreads()) {
+            logger.info("Preparing jobs on virtual threads.");
+            executor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("gasw-prepare-", 1).factory());
+        } else {
+            logger.info("Preparing jobs with {} threads.", size);
+            executor = newPlatformPool(size, "gasw-prepare-");
+        }
+        // submissions hold the executor plugin monitor: they run on platform
+        // threads so that a blocked submission never pins a carrier thread
+        logger.info("Starting submission pool with {} threads.", size);
+        submitter = newPlatformPool(size, "gasw-submit-");
+        SubmissionExecutor.set(submitter);
+    }
+
+    /**
+     * Generates the scripts, configurations and invocations of several jobs
+     * in parallel. If one of them fails, the artifacts prepared for the
+     * others are discarded and will be generated again on submission.
+     *
+     * @param gaswInputs Jobs inputs
+     * @throws GaswException
+     */
+    public void prepare(List<GaswInput> gaswInputs) throws GaswException {
+        List<Callable<Void>> tasks = new ArrayList<>(gaswInputs.size());
+        for (GaswInput gaswInput : gaswInputs) {
+            tasks.add(() -> {
+                GaswSubmit.prepare(gaswInput);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            discard(gaswInputs);
+            throw new GaswException("Unable to prepare jobs for submission", unwrap(ex.getCause()));
+
+        } catch (InterruptedException ex) {
+            discard(gaswInputs);
+            Thread.currentThread().interrupt();
+            throw new GaswException(ex);
+        }
+    }
+
+    public synchronized static void terminate() {
+        if (instance != null) {
+            instance.executor.shutdown();
+            SubmissionExecutor.set(null);
+            instance.submitter.shutdown();
+            instance = null;
+        }
+    }
+
+    private static ExecutorService newPlatformPool(int size, String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, r -> {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void discard(List<GaswInput> gaswInputs) {
+        for (GaswInput gaswInput : gaswInputs) {
+            GaswSubmit.discard(gaswInput);
+        }
+    }
+
+    private Exception unwrap(Throwable cause) {
+        return cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+    }
+}
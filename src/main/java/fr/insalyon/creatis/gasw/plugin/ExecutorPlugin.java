@@ -34,7 +34,10 @@ package fr.insalyon.creatis.gasw.plugin;
 
 import fr.insalyon.creatis.gasw.GaswException;
 import fr.insalyon.creatis.gasw.GaswInput;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import net.xeoh.plugins.base.Plugin;
 
 /**
@@ -74,6 +77,55 @@ public interface ExecutorPlugin extends Plugin {
      */
     public String submit() throws GaswException;
 
+    /**
+     * Submits a batch of jobs. The default implementation loads and submits
+     * each input in turn, holding the plugin monitor so that the load and
+     * submit of one job are never interleaved with another. Executors able
+     * to submit several jobs in one middleware call should override it.
+     *
+     * @param gaswInputs Jobs inputs
+     * @return Jobs identifications, in the same order as the inputs
+     * @throws GaswException
+     */
+    public default List<String> submit(List<GaswInput> gaswInputs) throws GaswException {
+        List<String> jobIDs = new ArrayList<>(gaswInputs.size());
+        for (GaswInput gaswInput : gaswInputs) {
+            synchronized (this) {
+                load(gaswInput);
+                jobIDs.add(submit());
+            }
+        }
+        return jobIDs;
+    }
+
+    /**
+     * Submits a job without blocking the caller. The default implementation
+     * runs load() and submit() on the bounded submission pool
+     * (submit.pool.size) while holding the plugin monitor, so it never runs
+     * two submissions of this executor at once. Executors that are
+     * thread-safe or have a native asynchronous API should override it to
+     * have several submissions in flight.
+     *
+     * @param gaswInput Job inputs
+     * @return Future completed with the job identification
+     */
+    public default CompletableFuture<String> submitAsync(GaswInput gaswInput) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    synchronized (this) {
+                        load(gaswInput);
+                        return submit();
+                    }
+                } catch (GaswException ex) {
+                    throw new CompletionException(ex);
+                }
+            }, SubmissionExecutor.get());
+        } catch (GaswException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
     /**
      * Finalizes the executor.
      *
@@ -0,0 +1,71 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.plugin;
+
+import fr.insalyon.creatis.gasw.GaswException;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor running the default asynchronous submissions of executor
+ * plugins. GASW sets it when its submission pool starts, so that plugins
+ * do not depend on the execution package.
+ */
+public final class SubmissionExecutor {
+
+    private static volatile Executor executor;
+
+    private SubmissionExecutor() {
+    }
+
+    /**
+     * Sets the executor of asynchronous submissions, or null when GASW
+     * terminates.
+     *
+     * @param submitter Executor of asynchronous submissions
+     */
+    public static void set(Executor submitter) {
+        executor = submitter;
+    }
+
+    /**
+     * @return Executor of asynchronous submissions
+     * @throws GaswException if the submission pool is not started
+     */
+    public static Executor get() throws GaswException {
+        Executor submitter = executor;
+        if (submitter == null) {
+            throw new GaswException("Submission pool is not started");
+        }
+        return submitter;
+    }
+}
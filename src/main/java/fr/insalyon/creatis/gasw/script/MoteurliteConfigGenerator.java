@@ -33,22 +33,29 @@
 
 package fr.insalyon.creatis.gasw.script;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import fr.insalyon.creatis.gasw.GaswConfiguration;
 import fr.insalyon.creatis.gasw.GaswConstants;
 import fr.insalyon.creatis.gasw.GaswException;
 import fr.insalyon.creatis.gasw.GaswInput;
 import fr.insalyon.creatis.gasw.execution.GaswMinorStatusServiceGenerator;
+import fr.insalyon.creatis.gasw.execution.JobFileResolver;
 
 public class MoteurliteConfigGenerator {
 
     private static MoteurliteConfigGenerator instance;
     private GaswConfiguration conf;
+    // Rendered entries that do not depend on the job
+    private volatile byte[] staticBlock;
 
     public synchronized static MoteurliteConfigGenerator getInstance() throws GaswException {
         if (instance == null) {
@@ -64,38 +71,161 @@ public class MoteurliteConfigGenerator {
     // Generates the configuration based on the input and minor status service
     public Map<String, String> generateConfig(GaswInput gaswInput, GaswMinorStatusServiceGenerator minorStatusService)
             throws IOException {
+        return generateConfig(gaswInput);
+    }
+
+    public Map<String, String> generateConfig(GaswInput gaswInput) throws IOException {
         Map<String, String> config = new HashMap<>();
         if (gaswInput.getExecutableName() != null) {
-            // Extract and append the current date and time to the first upload URI
-            URI uploadURI = gaswInput.getUploadURI();
+            config.putAll(getStaticConfig());
+            config.putAll(getJobConfig(gaswInput));
+        }
+
+        return config;
+    }
+
+    /**
+     * Renders the configuration file of a job. The entries that do not
+     * depend on the job are rendered once and reused until invalidate() is
+     * called; only the job entries are rendered on each call.
+     *
+     * @param gaswInput Job inputs
+     * @return Content of the configuration file
+     * @throws IOException
+     */
+    public byte[] renderConfig(GaswInput gaswInput) throws IOException {
+        if (gaswInput.getExecutableName() == null) {
+            return new byte[0];
+        }
+        byte[] block = staticBlock;
+        if (block == null) {
+            block = render(getStaticConfig());
+            staticBlock = block;
+        }
+        byte[] job = render(getJobConfig(gaswInput));
+        byte[] content = new byte[block.length + job.length];
+        System.arraycopy(block, 0, content, 0, block.length);
+        System.arraycopy(job, 0, content, block.length, job.length);
+
+        return content;
+    }
+
+    /**
+     * Discards the rendered static entries, so that the next configuration
+     * picks up changes made to the GASW configuration.
+     */
+    public void invalidate() {
+        staticBlock = null;
+    }
+
+    /**
+     * Tells whether the inputs of a job are listed in a manifest file rather
+     * than in the downloads entry of its configuration.
+     *
+     * @param gaswInput Job inputs
+     * @return true if the job uses an inputs manifest
+     */
+    public boolean useInputsManifest(GaswInput gaswInput) {
+        int threshold = conf.getSubmitManifestThreshold();
+        return threshold > 0 && gaswInput.getDownloads().size() >= threshold;
+    }
+
+    /**
+     * Renders the inputs manifest of a job: one URI per line, compressed
+     * with gzip if configured.
+     *
+     * @param gaswInput Job inputs
+     * @return Content of the manifest file
+     * @throws IOException
+     */
+    public byte[] renderInputsManifest(GaswInput gaswInput) throws IOException {
+        StringBuilder string = new StringBuilder();
+        for (URI download : gaswInput.getDownloads()) {
+            string.append(download.toString()).append('\n');
+        }
+        byte[] content = string.toString().getBytes(StandardCharsets.UTF_8);
+
+        if (!conf.isSubmitManifestCompress()) {
+            return content;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Map<String, String> getJobConfig(GaswInput gaswInput) {
+        Map<String, String> config = new LinkedHashMap<>();
+
+        if (useInputsManifest(gaswInput)) {
+            String jobName = JobFileResolver.getJobName(gaswInput.getJobId());
+            config.put("downloads", "");
+            config.put("downloadsManifest", JobFileResolver.getInputsManifestFileName(
+                    jobName, conf.isSubmitManifestCompress()));
+        } else {
             String downloads = gaswInput.getDownloads().stream()
                 .map(URI::toString)
                 .collect(Collectors.joining(" "));
- 
-            config.put("defaultEnvironment", conf.getDefaultEnvironment());
-            config.put("voDefaultSE", conf.getVoDefaultSE());
-            config.put("voUseCloseSE", conf.getVoUseCloseSE());
-            config.put("boshCVMFSPath", conf.getBoshCVMFSPath());
-            config.put("boutiquesProvenanceDir", conf.getBoutiquesProvenanceDir());
-            config.put("singularityPath", conf.getSingularityPath());
-            config.put("containersCVMFSPath", conf.getContainersCVMFSPath());
-            config.put("containersRuntime", conf.getContainersRuntime());
-            config.put("containersImagesBasePath", conf.getContainersImagesBasePath());
-            config.put("udockerTag", conf.getUdockerTag());
-            config.put("simulationID", conf.getSimulationID());
-            config.put("cacheDir", GaswConstants.CACHE_DIR);
-            config.put("nrep", String.valueOf(GaswConstants.numberOfReplicas));
-            config.put("cacheFile", GaswConstants.CACHE_FILE);
-            config.put("timeout", String.valueOf(GaswConstants.CONNECT_TIMEOUT));
-            config.put("minAvgDownloadThroughput", String.valueOf(conf.getMinAvgDownloadThroughput()));
-            config.put("bdiiTimeout", String.valueOf(GaswConstants.BDII_TIMEOUT));
-            config.put("srmTimeout", String.valueOf(GaswConstants.SRM_TIMEOUT));
             config.put("downloads", downloads);
-            config.put("boutiquesFilename", conf.getBoutiquesFilename());
-            config.put("uploadURI", uploadURI.toString());
-            config.put("sourceScript", conf.getSourceScript());
         }
+        config.put("uploadURI", gaswInput.getUploadURI().toString());
 
         return config;
     }
+
+    private Map<String, String> getStaticConfig() {
+        Map<String, String> config = new LinkedHashMap<>();
+        config.put("defaultEnvironment", conf.getDefaultEnvironment());
+        config.put("voDefaultSE", conf.getVoDefaultSE());
+        config.put("voUseCloseSE", conf.getVoUseCloseSE());
+        config.put("boshCVMFSPath", conf.getBoshCVMFSPath());
+        config.put("boutiquesProvenanceDir", conf.getBoutiquesProvenanceDir());
+        config.put("singularityPath", conf.getSingularityPath());
+        config.put("containersCVMFSPath", conf.getContainersCVMFSPath());
+        config.put("containersRuntime", conf.getContainersRuntime());
+        config.put("containersImagesBasePath", conf.getContainersImagesBasePath());
+        config.put("udockerTag", conf.getUdockerTag());
+        config.put("simulationID", conf.getSimulationID());
+        config.put("cacheDir", GaswConstants.CACHE_DIR);
+        config.put("nrep", String.valueOf(GaswConstants.numberOfReplicas));
+        config.put("cacheFile", GaswConstants.CACHE_FILE);
+        config.put("timeout", String.valueOf(GaswConstants.CONNECT_TIMEOUT));
+        config.put("minAvgDownloadThroughput", String.valueOf(conf.getMinAvgDownloadThroughput()));
+        config.put("bdiiTimeout", String.valueOf(GaswConstants.BDII_TIMEOUT));
+        config.put("srmTimeout", String.valueOf(GaswConstants.SRM_TIMEOUT));
+        config.put("boutiquesFilename", conf.getBoutiquesFilename());
+        config.put("sourceScript", conf.getSourceScript());
+
+        return config;
+    }
+
+    /**
+     * Renders configuration entries as bash variables.
+     */
+    static byte[] render(Map<String, String> config) {
+        StringBuilder string = new StringBuilder();
+        for (Map.Entry<String, String> entry : config.entrySet()) {
+            // remove leading and trailing quotes as this can mess up bash config
+            string.append(entry.getKey()).append("=\"");
+            appendWithoutQuotes(string, entry.getValue());
+            string.append("\"\n");
+        }
+        return string.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a value without its leading and trailing double quotes.
+     */
+    static void appendWithoutQuotes(StringBuilder string, String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) == '"') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) == '"') {
+            end--;
+        }
+        string.append(value, start, end);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,163 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.script;
+
+import fr.insalyon.creatis.gasw.GaswConstants;
+import fr.insalyon.creatis.gasw.GaswException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the job wrapper script. The script is read from the classpath
+ * once, written once under a name derived from its content hash, and each
+ * job script is a hard link to that shared copy. When hard links are not
+ * supported, job scripts are written from the in-memory copy.
+ */
+public class SharedScriptPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedScriptPublisher.class);
+    private static final String SCRIPT_RESOURCE = "script.sh";
+    private static SharedScriptPublisher instance;
+    private final byte[] script;
+    private final String hash;
+    private volatile Path sharedScript;
+    private volatile boolean linkSupported = true;
+
+    public synchronized static SharedScriptPublisher getInstance() throws GaswException {
+        if (instance == null) {
+            instance = new SharedScriptPublisher();
+        }
+        return instance;
+    }
+
+    private SharedScriptPublisher() throws GaswException {
+        try (InputStream is = SharedScriptPublisher.class.getClassLoader().getResourceAsStream(SCRIPT_RESOURCE)) {
+            if (is == null) {
+                throw new GaswException("Unable to find " + SCRIPT_RESOURCE + " in classpath.");
+            }
+            script = is.readAllBytes();
+            hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(script));
+
+        } catch (IOException | NoSuchAlgorithmException ex) {
+            logger.error("Error loading {} from classpath", SCRIPT_RESOURCE, ex);
+            throw new GaswException(ex);
+        }
+    }
+
+    /**
+     * Publishes the wrapper script of a job.
+     *
+     * @param jobScript Path of the job script
+     * @throws IOException
+     */
+    public void publish(Path jobScript) throws IOException {
+        Files.deleteIfExists(jobScript);
+
+        if (linkSupported) {
+            try {
+                Files.createLink(jobScript, getSharedScript());
+                return;
+
+            } catch (NoSuchFileException ex) {
+                // the shared copy was removed: publish it again
+                sharedScript = null;
+                Files.createLink(jobScript, getSharedScript());
+                return;
+
+            } catch (FileAlreadyExistsException ex) {
+                throw ex;
+
+            } catch (UnsupportedOperationException ex) {
+                disableLinks(jobScript, ex);
+
+            } catch (FileSystemException ex) {
+                if (ex.getClass() != FileSystemException.class) {
+                    // access denied and other specific errors may be transient:
+                    // copy this script but keep linking the next ones
+                    logger.warn("Unable to link {}, copying it instead: {}", jobScript, ex.toString());
+                } else {
+                    // cross-device or file system without hard links
+                    disableLinks(jobScript, ex);
+                }
+            }
+        }
+        Files.write(jobScript, script);
+    }
+
+    private void disableLinks(Path jobScript, Exception ex) {
+        logger.warn("Hard links are not supported for {}, copying scripts instead: {}",
+                jobScript, ex.getMessage());
+        linkSupported = false;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    private Path getSharedScript() throws IOException {
+        Path shared = sharedScript;
+        if (shared == null) {
+            synchronized (this) {
+                shared = sharedScript;
+                if (shared == null) {
+                    shared = Paths.get(GaswConstants.SHARED_SCRIPT_DIR, "script-" + hash + ".sh");
+                    if (!Files.exists(shared)) {
+                        Files.createDirectories(shared.getParent());
+                        // not Files.createTempFile: it would create the script
+                        // with mode 0600 instead of the default permissions
+                        Path tmp = shared.resolveSibling("script-" + hash + "."
+                                + ProcessHandle.current().pid() + ".tmp");
+                        Files.write(tmp, script);
+                        Files.move(tmp, shared, StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+                        logger.info("Published shared job script {}.", shared);
+                    }
+                    sharedScript = shared;
+                }
+            }
+        }
+        return shared;
+    }
+}
@@ -0,0 +1,132 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.util;
+
+import fr.insalyon.creatis.gasw.GaswConfiguration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polling interval adapting to the activity observed between polls. The
+ * interval is halved after a poll that observed changes or when only a
+ * few jobs remain, and grows by half after a poll that observed nothing,
+ * always staying within its bounds.
+ */
+public class AdaptivePollingInterval {
+
+    private final long minMillis;
+    private final long maxMillis;
+    private final int fewJobs;
+    private final AtomicInteger changes = new AtomicInteger();
+    private volatile long interval;
+
+    /**
+     * @param initialMillis Initial interval in milliseconds
+     * @param minMillis Minimum interval in milliseconds
+     * @param maxMillis Maximum interval in milliseconds
+     * @param fewJobs Number of remaining jobs at or below which polling
+     * speeds up, 0 to disable
+     */
+    public AdaptivePollingInterval(long initialMillis, long minMillis, long maxMillis, int fewJobs) {
+        this.minMillis = Math.max(1, Math.min(minMillis, maxMillis));
+        this.maxMillis = Math.max(this.minMillis, maxMillis);
+        this.fewJobs = fewJobs;
+        this.interval = clamp(initialMillis);
+    }
+
+    /**
+     * Creates the interval of a component polling at the default sleep
+     * time, adaptive within the configured bounds if enabled.
+     *
+     * @param conf GASW configuration
+     * @return Polling interval
+     */
+    public static AdaptivePollingInterval fromConfiguration(GaswConfiguration conf) {
+        int sleeptime = conf.getDefaultSleeptime();
+        if (conf.isPollingAdaptive()) {
+            return new AdaptivePollingInterval(sleeptime, conf.getPollingMin(),
+                    conf.getPollingMax(), conf.getPollingFewJobs());
+        }
+        return new AdaptivePollingInterval(sleeptime, sleeptime, sleeptime, 0);
+    }
+
+    /**
+     * Records changes observed since the last poll, e.g. status transitions.
+     *
+     * @param count Number of changes
+     */
+    public void recordChanges(int count) {
+        changes.addAndGet(count);
+    }
+
+    public void recordChange() {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Completes a poll and computes the interval until the next one.
+     *
+     * @param remainingJobs Number of jobs still monitored, negative if unknown
+     * @return Interval until the next poll in milliseconds
+     */
+    public long next(int remainingJobs) {
+        int observed = changes.getAndSet(0);
+        boolean fewRemaining = remainingJobs > 0 && remainingJobs <= fewJobs;
+
+        if (observed > 0 || fewRemaining) {
+            interval = clamp(interval / 2);
+        } else {
+            interval = clamp(interval + interval / 2);
+        }
+        return interval;
+    }
+
+    /**
+     * @return Current interval in milliseconds
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Sleeps for the current interval.
+     *
+     * @throws InterruptedException
+     */
+    public void sleep() throws InterruptedException {
+        Thread.sleep(interval);
+    }
+
+    private long clamp(long value) {
+        return Math.max(minMillis, Math.min(maxMillis, value));
+    }
+}
@@ -0,0 +1,192 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Map bounded in size and in entry age. Entries are evicted in insertion
+ * order once the maximum size is reached, and expire after the time to
+ * live. Evicted and expired entries are passed to an optional listener.
+ * Null keys and values are not supported.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private BiConsumer<K, V> evictionListener;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxSize Maximum number of entries
+     * @param ttlMillis Time to live of an entry in milliseconds, 0 to disable
+     */
+    public BoundedCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, System::currentTimeMillis);
+    }
+
+    BoundedCache(int maxSize, long ttlMillis, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Sets the listener receiving evicted and expired entries. It is called
+     * outside of the cache lock, by the thread that caused the eviction.
+     *
+     * @param evictionListener Listener
+     */
+    public synchronized void setEvictionListener(BiConsumer<K, V> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    public void put(K key, V value) {
+        List<Map.Entry<K, V>> evicted = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.getAsLong();
+            entries.remove(key);
+            entries.put(key, new Entry<>(value, now));
+            expire(now, evicted);
+
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (entries.size() > maxSize && it.hasNext()) {
+                Map.Entry<K, Entry<V>> eldest = it.next();
+                it.remove();
+                evicted.add(Map.entry(eldest.getKey(), eldest.getValue().value));
+            }
+            evictions += evicted.size();
+        }
+        notifyEvicted(evicted);
+    }
+
+    /**
+     * Gets a value, or null if it is absent or expired.
+     */
+    public V get(K key) {
+        Entry<V> entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && !isExpired(entry, clock.getAsLong())) {
+                hits++;
+                return entry.value;
+            }
+            misses++;
+            if (entry != null) {
+                entries.remove(key);
+                evictions++;
+            }
+        }
+        if (entry != null) {
+            notifyEvicted(List.of(Map.entry(key, entry.value)));
+        }
+        return null;
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        return entry == null ? null : entry.value;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private void expire(long now, List<Map.Entry<K, V>> evicted) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = it.next();
+            if (!isExpired(eldest.getValue(), now)) {
+                break;
+            }
+            it.remove();
+            evicted.add(Map.entry(eldest.getKey(), eldest.getValue().value));
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlMillis > 0 && now - entry.created >= ttlMillis;
+    }
+
+    private void notifyEvicted(List<Map.Entry<K, V>> evicted) {
+        BiConsumer<K, V> listener;
+        synchronized (this) {
+            listener = evictionListener;
+        }
+        if (listener != null) {
+            for (Map.Entry<K, V> entry : evicted) {
+                listener.accept(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+        private final long created;
+
+        private Entry(V value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+}
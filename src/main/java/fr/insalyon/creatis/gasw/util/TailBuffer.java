@@ -0,0 +1,153 @@
+/* Copyright CNRS-CREATIS
+ *
+ * Rafael Ferreira da Silva
+ * rafael.silva@creatis.insa-lyon.fr
+ * http://www.rafaelsilva.com
+ *
+ * This software is governed by the CeCILL  license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL license and that you accept its terms.
+ */
+package fr.insalyon.creatis.gasw.util;
+
+/**
+ * Character buffer keeping only the last characters appended to it. Its
+ * storage grows with the content until the capacity is reached, and is then
+ * used as a ring: appending never makes it bigger than the capacity.
+ */
+public class TailBuffer implements Appendable {
+
+    private static final int INITIAL_SIZE = 256;
+    private final int capacity;
+    private char[] chars;
+    private int start;
+    private int length;
+    private long totalLength;
+
+    /**
+     * @param capacity Maximum number of characters kept
+     */
+    public TailBuffer(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.chars = new char[Math.min(capacity, INITIAL_SIZE)];
+    }
+
+    @Override
+    public TailBuffer append(CharSequence csq) {
+        CharSequence value = csq == null ? "null" : csq;
+        return append(value, 0, value.length());
+    }
+
+    @Override
+    public TailBuffer append(CharSequence csq, int start, int end) {
+        CharSequence value = csq == null ? "null" : csq;
+        totalLength += end - start;
+        if (capacity == 0) {
+            return this;
+        }
+        if (end - start >= capacity) {
+            // only the end of the sequence fits
+            start = end - capacity;
+            this.start = 0;
+            this.length = 0;
+        }
+        ensureSize(length + end - start);
+        for (int i = start; i < end; i++) {
+            put(value.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public TailBuffer append(char c) {
+        totalLength++;
+        if (capacity > 0) {
+            ensureSize(length + 1);
+            put(c);
+        }
+        return this;
+    }
+
+    private void put(char c) {
+        if (length < chars.length) {
+            chars[(start + length) % chars.length] = c;
+            length++;
+        } else {
+            chars[start] = c;
+            start = (start + 1) % chars.length;
+        }
+    }
+
+    private void ensureSize(int size) {
+        size = Math.min(size, capacity);
+        if (chars.length < size) {
+            char[] resized = new char[Math.min(capacity, Math.max(size, chars.length * 2))];
+            copyTo(resized);
+            chars = resized;
+            start = 0;
+        }
+    }
+
+    private void copyTo(char[] dest) {
+        int first = Math.min(length, chars.length - start);
+        System.arraycopy(chars, start, dest, 0, first);
+        System.arraycopy(chars, 0, dest, first, length - first);
+    }
+
+    /**
+     * @return Number of characters kept
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return Number of characters appended since the creation of the
+     * buffer
+     */
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * @return true if characters were dropped
+     */
+    public boolean isTruncated() {
+        return totalLength > length;
+    }
+
+    /**
+     * @return Characters kept, oldest first
+     */
+    @Override
+    public String toString() {
+        char[] tail = new char[length];
+        copyTo(tail);
+        return new String(tail);
+    }
+}
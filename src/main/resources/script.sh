@@ -776,13 +776,30 @@ function performDownload {
   # Create a file to disable watchdog CPU wallclock check
   touch ../DISABLE_WATCHDOG_CPU_WALLCLOCK_CHECK
 
-  # Iterate over each URL in the 'downloads' array
-  for download in ${downloads}; do
-    # Remove leading and trailing whitespace
-    local download="$(echo -e "${download}" | sed -e 's/^[[:space:]]*//' -e 's/[[:space:]]*$//')"
-    # Process the URL using downloadURI function
-    downloadURI "$download"
-  done
+  if [ -n "$downloadsManifest" ]; then
+    # Stream the inputs manifest, one URL per line, on a dedicated file
+    # descriptor so that download commands cannot consume it
+    if [[ "$downloadsManifest" == *.gz ]]; then
+      exec 3< <(gzip -dc "../inv/$downloadsManifest")
+    else
+      exec 3< "../inv/$downloadsManifest"
+    fi
+    local download
+    while read -r -u 3 download || [ -n "$download" ]; do
+      if [ -n "$download" ]; then
+        downloadURI "$download"
+      fi
+    done
+    exec 3<&-
+  else
+    # Iterate over each URL in the 'downloads' array
+    for download in ${downloads}; do
+      # Remove leading and trailing whitespace
+      local download="$(echo -e "${download}" | sed -e 's/^[[:space:]]*//' -e 's/[[:space:]]*$//')"
+      # Process the URL using downloadURI function
+      downloadURI "$download"
+    done
+  fi
 
   # Change permissions of all files in the directory
   chmod 755 -- *
@@ -1411,6 +1428,12 @@ if [[ ! -d "config" || ! -d "inv" ]]; then
   info "Copied ${configurationFilename} to config/"
   cp "${invocationJsonFilename}" inv/
   info "Copied ${invocationJsonFilename} to inv/"
+  for inputsManifestFilename in "$DIRNAME-inputs.txt" "$DIRNAME-inputs.txt.gz"; do
+    if [ -f "$inputsManifestFilename" ]; then
+      cp "$inputsManifestFilename" inv/
+      info "Copied $inputsManifestFilename to inv/"
+    fi
+  done
 else
   info "Directories already exist. Skipping copy."
 fi
@@ -1433,6 +1456,7 @@ if [ -f "$configurationFile" ]; then
   voDefaultSE=
   uploadURI=
   downloads=
+  downloadsManifest=
   boutiquesFilename=
   udockerTag=
   singularityPath=
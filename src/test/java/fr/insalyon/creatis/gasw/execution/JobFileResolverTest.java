@@ -0,0 +1,55 @@
+package fr.insalyon.creatis.gasw.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("JobFileResolver tests")
+public class JobFileResolverTest {
+
+    @Test
+    @DisplayName("Flat layout keeps job files directly under their root")
+    public void flatLayout() {
+        JobFileResolver resolver = new JobFileResolver(false);
+
+        assertEquals(Paths.get("./out/job-1.sh.out"),
+                resolver.getStdFile("./out", "job-1", ".out"));
+        assertEquals(Paths.get("./config/job-1-configuration.sh"),
+                resolver.getConfigurationFile("job-1"));
+        assertEquals("job-1", JobFileResolver.getJobName("job-1.sh"));
+    }
+
+    @Test
+    @DisplayName("Sharded layout places all files of a job in the same two-level sub-directory")
+    public void shardedLayout() {
+        JobFileResolver resolver = new JobFileResolver(true);
+
+        Path out = resolver.getStdFile("./out", "job-1", ".out");
+        Path inv = resolver.getInvocationFile("job-1");
+
+        assertEquals(3, Paths.get("./out").relativize(out).getNameCount());
+        assertEquals(Paths.get("./out").relativize(out).getParent(),
+                Paths.get("./inv").relativize(inv).getParent());
+        assertEquals(out, resolver.getStdFile("./out", "job-1", ".out"));
+        assertNotEquals(resolver.getDirectory("./out", "job-1"),
+                resolver.getDirectory("./out", "job-2"));
+    }
+
+    @Test
+    @DisplayName("Script and JDL names handed to plugins are relative to their root and give back the job name")
+    public void relativeNames() {
+        JobFileResolver resolver = new JobFileResolver(true);
+
+        String scriptName = JobFileResolver.getRelativeName("./sh", resolver.getScriptFile("job-1"));
+        assertEquals(3, scriptName.split("/").length);
+        assertEquals("job-1", JobFileResolver.getJobName(scriptName));
+        assertEquals(resolver.getDirectory("./jdl", "job-1").resolve("job-1.jdl"),
+                resolver.getJdlFile(JobFileResolver.getJobName(scriptName)));
+        assertEquals("job.1", JobFileResolver.getJobName("job.1.sh"));
+        assertEquals("job.1", JobFileResolver.getJobName("job.1"));
+    }
+}
@@ -0,0 +1,222 @@
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.GaswUtil;
+import fr.insalyon.creatis.gasw.bean.Data;
+import fr.insalyon.creatis.gasw.bean.Job;
+import fr.insalyon.creatis.gasw.bean.Node;
+import fr.insalyon.creatis.gasw.bean.NodeID;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Scanner based parsing loops GaswOutputParser used before StdOutScanner
+ * and StdErrScanner, kept as a reference for equivalence tests and
+ * benchmarks.
+ */
+public class LegacyOutputScan {
+
+    public final Node node = new Node();
+    public final NodeID nodeID = new NodeID();
+    public Map<String, URI> uploadedResults;
+    public int exitCode = -1;
+
+    public void scanStdOut(File stdOut, Job job, Writer appStdOutWriter, StringBuilder appStdOutBuf,
+            List<Data> dataList) throws IOException, URISyntaxException {
+
+        Scanner scanner = new Scanner(new FileInputStream(stdOut));
+
+        boolean isAppExec = false;
+        boolean isInputDownload = false;
+        boolean isResultUpload = false;
+        boolean isAfterExec = false;
+        String lfcHost = "";
+
+        try {
+            while (scanner.hasNextLine()) {
+
+                String line = scanner.nextLine();
+                String[] lineSplitted = line.split(" ");
+
+                if (line.contains("<application_execution>")) {
+                    isAppExec = true;
+                } else if (line.contains("</application_execution>")) {
+                    isAppExec = false;
+                    isAfterExec = true;
+                } else if (isAppExec) {
+                    appStdOutWriter.write(line + "\n");
+                    appStdOutBuf.append(line).append("\n");
+                }
+
+                if (line.contains("Input download time:")) {
+                    int downloadTime = Integer.parseInt(lineSplitted[lineSplitted.length - 2]);
+                    job.setRunning(addDate(job.getDownload(), downloadTime));
+
+                } else if (line.contains("Execution time:")) {
+                    if (job.getRunning() == null) {
+                        job.setRunning(job.getDownload());
+                    }
+                    int executionTime = Integer.parseInt(lineSplitted[lineSplitted.length - 2]);
+                    job.setUpload(addDate(job.getRunning(), executionTime));
+
+                } else if (line.contains("Results upload time:")) {
+                    int uploadTime = Integer.parseInt(lineSplitted[lineSplitted.length - 2]);
+                    job.setEnd(addDate(job.getUpload(), uploadTime));
+
+                } else if (line.contains("Exiting with return value") && isAfterExec) {
+                    String[] errmsg = line.split("\\s+");
+                    exitCode = Integer.parseInt(errmsg[errmsg.length - 1]);
+                    job.setExitCode(exitCode);
+
+                } else if (line.startsWith("===== uname =====")) {
+                    line = scanner.nextLine();
+                    nodeID.setNodeName(line.split(" ")[1]);
+
+                } else if (line.startsWith("SITE_NAME")) {
+                    nodeID.setSiteName(line.split("=")[1]);
+
+                } else if (line.startsWith("PBS_O_HOST") && nodeID.getSiteName() == null) {
+                    nodeID.setSiteName(line.split("=")[1]);
+                    String code = nodeID.getNodeName().substring(nodeID.getNodeName().lastIndexOf(".") + 1);
+                    if (code.length() != 2) {
+                        String host = line.split("=")[1];
+                        String countryCode = host.substring(host.lastIndexOf("."));
+                        nodeID.setNodeName(nodeID.getNodeName() + countryCode);
+                    }
+
+                } else if (line.startsWith("CE_ID")) {
+                    String code = nodeID.getNodeName().substring(nodeID.getNodeName().lastIndexOf(".") + 1);
+                    if (code.length() != 2) {
+                        String host = URI.create("http://" + line.split("=")[1]).getHost();
+                        String countryCode = host.substring(host.lastIndexOf("."));
+                        nodeID.setNodeName(nodeID.getNodeName() + countryCode);
+                    }
+
+                } else if (line.startsWith("processor")) {
+                    node.setnCpus(Integer.parseInt(line.split(":")[1].trim()) + 1);
+
+                } else if (line.startsWith("model name")) {
+                    node.setCpuModelName(line.split(":")[1].trim());
+
+                } else if (line.startsWith("cpu MHz")) {
+                    node.setCpuMhz(Double.parseDouble(line.split(":")[1].trim()));
+
+                } else if (line.startsWith("cache size")) {
+                    node.setCpuCacheSize(Integer.parseInt(line.split(":")[1].trim().split(" ")[0]));
+
+                } else if (line.startsWith("bogomips")) {
+                    node.setCpuBogoMips(Double.parseDouble(line.split(":")[1].trim()));
+
+                } else if (line.startsWith("MemTotal:")) {
+                    node.setMemTotal(Integer.parseInt(line.split("\\s+")[1]));
+
+                } else if (line.startsWith("<inputs_download>")) {
+                    isInputDownload = true;
+
+                } else if (line.startsWith("</inputs_download>")) {
+                    isInputDownload = false;
+
+                } else if (line.startsWith("<file_download") && isInputDownload) {
+                    String downloadedFile = line.substring(line.indexOf("=") + 1, line.length() - 1);
+                    dataList.add(new Data(downloadedFile, Data.Type.Input));
+
+                } else if (line.startsWith("<results_upload>")) {
+                    isResultUpload = true;
+                    uploadedResults = new HashMap<String, URI>();
+
+                } else if (line.startsWith("</results_upload>")) {
+                    isResultUpload = false;
+
+                } else if (line.startsWith("LFC_HOST")) {
+                    lfcHost = line.substring(line.indexOf("=") + 1);
+
+                } else if (line.startsWith("<file_upload") && isResultUpload) {
+                    int uriStartIndex = line.lastIndexOf("uri=");
+                    String outputId = line.substring(line.indexOf("id=") + 3, uriStartIndex - 1);
+                    String uploadedFile = line.substring(uriStartIndex + 4, line.length() - 1);
+                    URI uri;
+                    if (GaswUtil.isUri(uploadedFile)) {
+                        uri = new URI(uploadedFile);
+                    } else {
+                        uri = lfcHost.isEmpty()
+                            ? new URI("file://" + uploadedFile)
+                            : new URI("lfn://" + lfcHost + uploadedFile);
+                    }
+                    uploadedResults.put(outputId, uri);
+                    dataList.add(new Data(uri.toString(), Data.Type.Output));
+                }
+            }
+        } finally {
+            scanner.close();
+        }
+    }
+
+    public void scanStdErr(File stdErr, Job job, Writer appStdErrWriter, StringBuilder appStdErrBuf,
+            StringBuilder inputsDownloadErrBuf, StringBuilder resultsUploadErrBuf) throws IOException {
+
+        Scanner scanner = new Scanner(new FileInputStream(stdErr));
+
+        try {
+            boolean isAppExec = false;
+            boolean isInputsDownload = false;
+            boolean isResultsUpload = false;
+            boolean isUploadTest = false;
+
+            while (scanner.hasNext()) {
+
+                String line = scanner.nextLine();
+
+                if (line.contains("<application_execution>")) {
+                    isAppExec = true;
+                } else if (line.contains("</application_execution>")) {
+                    isAppExec = false;
+                } else if (line.contains("<inputs_download>")) {
+                    isInputsDownload = true;
+                } else if (line.contains("</inputs_download>")) {
+                    isInputsDownload = false;
+                } else if (line.contains("<results_upload>")) {
+                    isResultsUpload = true;
+                } else if (line.contains("</results_upload>")) {
+                    isResultsUpload = false;
+                } else if (line.contains("<upload_test>")) {
+                    isUploadTest = true;
+                } else if (line.contains("</upload_test>")) {
+                    isUploadTest = false;
+                } else if (isAppExec) {
+                    appStdErrWriter.write(line + "\n");
+                    appStdErrBuf.append(line).append("\n");
+                } else if (isInputsDownload) {
+                    inputsDownloadErrBuf.append(line).append("\n");
+                } else if (isResultsUpload) {
+                    resultsUploadErrBuf.append(line).append("\n");
+                } else if (isUploadTest) {
+                    resultsUploadErrBuf.append(line).append("\n");
+                }
+
+                if (line.contains("Exiting with return value")) {
+                    String[] errmsg = line.split("\\s+");
+                    exitCode = Integer.valueOf(errmsg[errmsg.length - 1]).intValue();
+                    job.setExitCode(exitCode);
+                }
+            }
+        } finally {
+            scanner.close();
+        }
+    }
+
+    private static Date addDate(Date dateToBeAdded, int amount) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(dateToBeAdded);
+        calendar.add(Calendar.SECOND, amount);
+        return calendar.getTime();
+    }
+}
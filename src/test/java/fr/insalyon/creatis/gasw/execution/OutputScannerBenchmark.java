@@ -0,0 +1,96 @@
+package fr.insalyon.creatis.gasw.execution;
+
+import fr.insalyon.creatis.gasw.bean.Data;
+import fr.insalyon.creatis.gasw.bean.Job;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the Scanner based parsing of a standard output with
+ * StdOutScanner, on src/test/resources/execA.out whose application section
+ * is padded with generated lines. Run with:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *     org.openjdk.jmh.Main OutputScannerBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OutputScannerBenchmark {
+
+    @Param({"1000", "200000"})
+    public int applicationLines;
+
+    private File stdOut;
+
+    @Setup(Level.Trial)
+    public void createOutput() throws Exception {
+        List<String> lines = Files.readAllLines(Paths.get("src/test/resources/execA.out"));
+        int start = lines.indexOf("<application_execution>") + 1;
+
+        List<String> output = new ArrayList<>(lines.subList(0, start));
+        for (int i = 0; i < applicationLines; i++) {
+            output.add("[step " + i + "] processing block " + i + " value=0.123 ok");
+        }
+        output.addAll(lines.subList(start, lines.size()));
+
+        stdOut = File.createTempFile("benchmark", ".out");
+        Files.write(stdOut.toPath(), output);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutput() {
+        stdOut.delete();
+    }
+
+    @Benchmark
+    public Job legacyScanner() throws Exception {
+        Job job = newJob();
+        new LegacyOutputScan().scanStdOut(stdOut, job, new StringWriter(),
+                new StringBuilder(), new ArrayList<Data>());
+        return job;
+    }
+
+    @Benchmark
+    public Job stdOutScanner() throws Exception {
+        Job job = newJob();
+        try (BufferedReader reader = new BufferedReader(new FileReader(stdOut))) {
+            new StdOutScanner(job, new StringWriter(), new StringBuilder(),
+                    new ArrayList<Data>()).scan(reader);
+        }
+        return job;
+    }
+
+    private Job newJob() {
+        Job job = new Job();
+        job.setId("benchmark");
+        job.setDownload(new Date());
+        return job;
+    }
+}
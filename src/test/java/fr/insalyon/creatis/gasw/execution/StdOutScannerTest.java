@@ -0,0 +1,167 @@
+package fr.insalyon.creatis.gasw.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import fr.insalyon.creatis.gasw.bean.Data;
+import fr.insalyon.creatis.gasw.bean.Job;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("StdOutScanner and StdErrScanner tests")
+public class StdOutScannerTest {
+
+    private static final String STDOUT = String.join("\n",
+            "===== uname ===== ",
+            "Linux node12.cluster 5.14.0 x86_64",
+            "PBS_O_HOST=frontend.example.fr",
+            "CE_ID=ce.example.fr:8443/cream-pbs",
+            "LFC_HOST=lfc.example.fr",
+            "processor   : 0",
+            "model name  : AMD EPYC-Rome Processor",
+            "cpu MHz     : 2345.592",
+            "cache size  : 512 KB",
+            "bogomips    : 4691.18",
+            "processor   : 1",
+            "MemTotal:        8130640 kB",
+            "[ INFO ] Exiting with return value 3",
+            "<inputs_download>",
+            "<file_download uri=lfn:/grid/biomed/in.txt>",
+            "</inputs_download>",
+            "<application_execution>",
+            "computing",
+            "",
+            "<not a tag> Execution time: 99 seconds",
+            "</application_execution>",
+            "<results_upload>",
+            "<file_upload id=output uri=/grid/biomed/out.txt>",
+            "<file_upload id=log uri=file:/tmp/log.txt>",
+            "</results_upload>",
+            "[ INFO - Tue Jan 28 ] Input download time: 1 seconds",
+            "[ INFO - Tue Jan 28 ] Execution time:  3 seconds",
+            "[ INFO - Tue Jan 28 ] Results upload time: 2 seconds ",
+            "[ INFO - Tue Jan 28 ] Exiting with return value 0",
+            "");
+
+    private static final String STDERR = String.join("\n",
+            "<inputs_download>",
+            "download failed",
+            "",
+            "</inputs_download>",
+            "<application_execution>",
+            "  ",
+            "segfault",
+            "</application_execution>",
+            "<upload_test>",
+            "test failed",
+            "</upload_test>",
+            "<results_upload>",
+            "upload failed",
+            "Exiting with return value 7",
+            "</results_upload>",
+            "",
+            "   ",
+            "");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Standard outputs are parsed as with the Scanner based loop")
+    public void sameStdOut() throws Exception {
+        assertSameStdOut(write("synthetic.out", STDOUT));
+        assertSameStdOut(new File("src/test/resources/execA.out"));
+    }
+
+    @Test
+    @DisplayName("Standard errors are parsed as with the Scanner based loop")
+    public void sameStdErr() throws Exception {
+        File stdErr = write("synthetic.err", STDERR);
+
+        Job expectedJob = newJob();
+        StringWriter expectedWriter = new StringWriter();
+        StringBuilder[] expected = {new StringBuilder(), new StringBuilder(), new StringBuilder()};
+        LegacyOutputScan legacy = new LegacyOutputScan();
+        legacy.scanStdErr(stdErr, expectedJob, expectedWriter, expected[0], expected[1], expected[2]);
+
+        Job job = newJob();
+        StringWriter writer = new StringWriter();
+        StringBuilder[] actual = {new StringBuilder(), new StringBuilder(), new StringBuilder()};
+        StdErrScanner scanner = new StdErrScanner(job, writer, actual[0], actual[1], actual[2], -1);
+        try (BufferedReader reader = new BufferedReader(new FileReader(stdErr))) {
+            scanner.scan(reader);
+        }
+
+        assertTrue(scanner.isExitCodeFound());
+        assertEquals(7, scanner.getExitCode());
+        assertEquals(legacy.exitCode, scanner.getExitCode());
+        assertEquals(expectedJob.getExitCode(), job.getExitCode());
+        assertEquals(expectedWriter.toString(), writer.toString());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].toString(), actual[i].toString());
+        }
+    }
+
+    private void assertSameStdOut(File stdOut) throws Exception {
+        Job expectedJob = newJob();
+        StringWriter expectedWriter = new StringWriter();
+        StringBuilder expectedBuf = new StringBuilder();
+        List<Data> expectedData = new ArrayList<>();
+        LegacyOutputScan legacy = new LegacyOutputScan();
+        legacy.scanStdOut(stdOut, expectedJob, expectedWriter, expectedBuf, expectedData);
+
+        Job job = newJob();
+        StringWriter writer = new StringWriter();
+        StringBuilder buf = new StringBuilder();
+        List<Data> data = new ArrayList<>();
+        StdOutScanner scanner = new StdOutScanner(job, writer, buf, data);
+        try (BufferedReader reader = new BufferedReader(new FileReader(stdOut))) {
+            scanner.scan(reader);
+        }
+
+        assertEquals(legacy.exitCode, scanner.getExitCode());
+        assertEquals(expectedJob.getExitCode(), job.getExitCode());
+        assertEquals(expectedJob.getRunning(), job.getRunning());
+        assertEquals(expectedJob.getUpload(), job.getUpload());
+        assertEquals(expectedJob.getEnd(), job.getEnd());
+
+        assertEquals(legacy.nodeID.getSiteName(), scanner.getNodeID().getSiteName());
+        assertEquals(legacy.nodeID.getNodeName(), scanner.getNodeID().getNodeName());
+        assertEquals(legacy.node.getnCpus(), scanner.getNode().getnCpus());
+        assertEquals(legacy.node.getCpuModelName(), scanner.getNode().getCpuModelName());
+        assertEquals(legacy.node.getCpuMhz(), scanner.getNode().getCpuMhz());
+        assertEquals(legacy.node.getCpuCacheSize(), scanner.getNode().getCpuCacheSize());
+        assertEquals(legacy.node.getCpuBogoMips(), scanner.getNode().getCpuBogoMips());
+        assertEquals(legacy.node.getMemTotal(), scanner.getNode().getMemTotal());
+
+        assertEquals(expectedData.size(), data.size());
+        for (int i = 0; i < data.size(); i++) {
+            assertEquals(expectedData.get(i).getDataPath(), data.get(i).getDataPath());
+            assertEquals(expectedData.get(i).getDataType(), data.get(i).getDataType());
+        }
+        assertEquals(legacy.uploadedResults, scanner.getUploadedResults());
+        assertEquals(expectedWriter.toString(), writer.toString());
+        assertEquals(expectedBuf.toString(), buf.toString());
+    }
+
+    private Job newJob() {
+        Job job = new Job();
+        job.setId("job-1");
+        job.setDownload(new Date(1_700_000_000_000L));
+        return job;
+    }
+
+    private File write(String name, String content) throws Exception {
+        return Files.writeString(dir.resolve(name), content).toFile();
+    }
+}
@@ -0,0 +1,29 @@
+package fr.insalyon.creatis.gasw.script;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("MoteurliteConfigGenerator tests")
+public class MoteurliteConfigGeneratorTest {
+
+    @Test
+    @DisplayName("Entries are rendered as bash variables without surrounding quotes")
+    public void render() {
+        Map<String, String> config = new LinkedHashMap<>();
+        config.put("downloads", "lfn:/a lfn:/b");
+        config.put("sourceScript", "\"\"/cvmfs/setup.sh\"");
+        config.put("udockerTag", "\"");
+
+        String content = new String(MoteurliteConfigGenerator.render(config), StandardCharsets.UTF_8);
+
+        assertEquals("downloads=\"lfn:/a lfn:/b\"\n"
+                + "sourceScript=\"/cvmfs/setup.sh\"\n"
+                + "udockerTag=\"\"\n", content);
+    }
+}
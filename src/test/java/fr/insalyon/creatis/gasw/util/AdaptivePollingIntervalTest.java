@@ -0,0 +1,50 @@
+package fr.insalyon.creatis.gasw.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("AdaptivePollingInterval tests")
+public class AdaptivePollingIntervalTest {
+
+    @Test
+    @DisplayName("Interval shortens on changes and backs off when idle, within bounds")
+    public void changesAndIdle() {
+        AdaptivePollingInterval interval = new AdaptivePollingInterval(20000, 5000, 60000, 0);
+
+        interval.recordChanges(3);
+        assertEquals(10000, interval.next(100));
+        interval.recordChange();
+        assertEquals(5000, interval.next(100));
+        interval.recordChange();
+        assertEquals(5000, interval.next(100));
+
+        assertEquals(7500, interval.next(100));
+        assertEquals(11250, interval.next(100));
+        for (int i = 0; i < 10; i++) {
+            interval.next(100);
+        }
+        assertEquals(60000, interval.getInterval());
+    }
+
+    @Test
+    @DisplayName("Interval shortens when few jobs remain")
+    public void fewJobs() {
+        AdaptivePollingInterval interval = new AdaptivePollingInterval(20000, 5000, 60000, 10);
+
+        assertEquals(10000, interval.next(3));
+        assertEquals(15000, interval.next(0));
+        assertEquals(22500, interval.next(-1));
+    }
+
+    @Test
+    @DisplayName("Equal bounds give a fixed interval")
+    public void fixed() {
+        AdaptivePollingInterval interval = new AdaptivePollingInterval(20000, 20000, 20000, 0);
+
+        interval.recordChange();
+        assertEquals(20000, interval.next(1));
+        assertEquals(20000, interval.next(1));
+    }
+}
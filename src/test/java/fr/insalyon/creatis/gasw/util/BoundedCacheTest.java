@@ -0,0 +1,60 @@
+package fr.insalyon.creatis.gasw.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("BoundedCache tests")
+public class BoundedCacheTest {
+
+    @Test
+    @DisplayName("Eldest entries are evicted beyond the maximum size")
+    public void sizeEviction() {
+        List<String> evicted = new ArrayList<>();
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 0);
+        cache.setEvictionListener((key, value) -> evicted.add(key));
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("a", "3");
+        cache.put("c", "4");
+
+        assertEquals(List.of("b"), evicted);
+        assertEquals("3", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    @DisplayName("Entries expire after the time to live")
+    public void ttlEviction() {
+        AtomicLong now = new AtomicLong();
+        List<String> evicted = new ArrayList<>();
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 100, now::get);
+        cache.setEvictionListener((key, value) -> evicted.add(key));
+
+        cache.put("a", "1");
+        now.set(50);
+        cache.put("b", "2");
+        now.set(100);
+
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+
+        now.set(200);
+        cache.put("c", "3");
+
+        assertEquals(List.of("a", "b"), evicted);
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getEvictions());
+    }
+}
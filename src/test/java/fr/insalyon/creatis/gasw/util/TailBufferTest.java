@@ -0,0 +1,46 @@
+package fr.insalyon.creatis.gasw.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("TailBuffer tests")
+public class TailBufferTest {
+
+    @Test
+    @DisplayName("Content shorter than the capacity is kept whole")
+    public void shortContent() {
+        TailBuffer buffer = new TailBuffer(1000);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            buffer.append("line " + i).append('\n');
+            expected.append("line " + i).append('\n');
+        }
+
+        assertEquals(expected.toString(), buffer.toString());
+        assertEquals(expected.length(), buffer.getTotalLength());
+        assertFalse(buffer.isTruncated());
+    }
+
+    @Test
+    @DisplayName("Only the last characters are kept beyond the capacity")
+    public void tail() {
+        TailBuffer buffer = new TailBuffer(10);
+        buffer.append("abcdef").append("ghijkl").append('m');
+
+        assertEquals("defghijklm", buffer.toString());
+        assertEquals(13, buffer.getTotalLength());
+        assertTrue(buffer.isTruncated());
+
+        buffer.append("0123456789ABC");
+        assertEquals("3456789ABC", buffer.toString());
+
+        TailBuffer empty = new TailBuffer(0);
+        empty.append("abc");
+        assertEquals("", empty.toString());
+        assertTrue(empty.isTruncated());
+    }
+}